@@ -0,0 +1,402 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.mvc.net;
+
+import com.hartrusion.mvc.ActionCommand;
+import com.hartrusion.mvc.ActionTracer;
+import com.hartrusion.mvc.Controller;
+import com.hartrusion.mvc.ModelListener;
+import com.hartrusion.mvc.ModelManipulation;
+import com.hartrusion.mvc.UpdateReceiver;
+import com.hartrusion.util.LatencyHistogram;
+import java.beans.PropertyChangeEvent;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Load generator and soak test for the net package. Runs a synthetic model
+ * which updates a number of properties at a fixed rate, a SocketServer and a
+ * number of NetViewAdapter clients which also send actions. Server and
+ * clients can run in one JVM or in separate processes on the same host.
+ * <p>
+ * Each tick, the model sends its send time as a double property, the clients
+ * measure the latency from that. The actions of the clients are traced, the
+ * round trip until the response of the model arrives back is measured with
+ * an ActionTracer. Every report interval, the throughput, latency
+ * percentiles, allocation rate, GC and thread counts of this JVM are printed.
+ * <p>
+ * Arguments are given as key=value:
+ * <ul>
+ * <li>mode: all (default), server or clients</li>
+ * <li>host: server host for mode clients (default localhost)</li>
+ * <li>port: server port (default 7820)</li>
+ * <li>properties: number of properties (default 1000)</li>
+ * <li>rate: model updates per second (default 50)</li>
+ * <li>mix: percentage of double, boolean and object properties, the rest
+ * (default 60,30)</li>
+ * <li>clients: number of clients (default 4)</li>
+ * <li>actions: actions per second and client (default 10)</li>
+ * <li>seconds: duration, 0 runs until stopped (default 30)</li>
+ * <li>report: report interval in seconds (default 5)</li>
+ * </ul>
+ * The send time is System.nanoTime(), so with separate processes the update
+ * latency is only valid if all run on the same host.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class NetLoadGenerator {
+
+    private static final String SEND_TIME = "Load#SendTime";
+    private static final String ACTION = "Load#Action";
+    private static final String ACTION_RESPONSE = "Load#ActionResponse";
+
+    private final Map<String, String> options = new HashMap<>();
+
+    private final ClassBlueprints blueprints = new ClassBlueprints();
+
+    private final LatencyHistogram updateLatency = new LatencyHistogram();
+    private final AtomicLong receivedUpdates = new AtomicLong();
+    private final ActionTracer tracer = new ActionTracer();
+
+    private final List<NetViewAdapter> clients = new ArrayList<>();
+    private SocketServer server;
+
+    private volatile boolean running = true;
+
+    private NetLoadGenerator(String[] args) {
+        for (String arg : args) {
+            int idx = arg.indexOf('=');
+            if (idx < 1) {
+                throw new IllegalArgumentException("Expected key=value: "
+                        + arg);
+            }
+            options.put(arg.substring(0, idx), arg.substring(idx + 1));
+        }
+        blueprints.registerType(Double.class,
+                (out, value) -> out.writeDouble(value),
+                (in) -> in.readDouble());
+        blueprints.registerType(String.class,
+                (out, value) -> out.writeUTF(value),
+                (in) -> in.readUTF());
+    }
+
+    private int intOption(String key, int defaultValue) {
+        String value = options.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private String option(String key, String defaultValue) {
+        return options.getOrDefault(key, defaultValue);
+    }
+
+    /**
+     * Model with synthetic properties, all updated on each tick. Actions are
+     * answered with a property change carrying the action value.
+     */
+    private static class SyntheticModel implements ModelManipulation {
+
+        private final Controller controller;
+        private final String[] names;
+        private final byte[] types;
+        private long tick;
+
+        SyntheticModel(Controller controller, int properties,
+                int doublePercent, int booleanPercent) {
+            this.controller = controller;
+            names = new String[properties];
+            types = new byte[properties];
+            for (int idx = 0; idx < properties; idx++) {
+                names[idx] = "Load#Property" + idx;
+                int slot = idx % 100;
+                types[idx] = (byte) (slot < doublePercent ? 0
+                        : slot < doublePercent + booleanPercent ? 1 : 2);
+            }
+        }
+
+        void tick() {
+            controller.fireActions();
+            tick++;
+            for (int idx = 0; idx < names.length; idx++) {
+                switch (types[idx]) {
+                    case 0:
+                        controller.propertyChange(names[idx],
+                                Math.sin(tick * 0.01 + idx));
+                        break;
+                    case 1:
+                        controller.propertyChange(names[idx],
+                                ((tick + idx) & 64) != 0);
+                        break;
+                    default:
+                        controller.propertyChange(new PropertyChangeEvent(
+                                this, names[idx], null,
+                                "Value " + ((tick + idx) & 1023)));
+                        break;
+                }
+            }
+            controller.propertyChange(SEND_TIME, (double) System.nanoTime());
+        }
+
+        @Override
+        public void updateNotification(String propertyName) {
+        }
+
+        @Override
+        public void handleAction(ActionCommand ac) {
+            // Fired while handling, so the controller marks it as response.
+            controller.propertyChange(new PropertyChangeEvent(this,
+                    ACTION_RESPONSE, null, ac.getValue()));
+        }
+
+        @Override
+        public void registerController(ModelListener controller) {
+        }
+    }
+
+    /**
+     * Counts all updates and records the latency of the send time property.
+     */
+    private class LoadReceiver implements UpdateReceiver {
+
+        @Override
+        public void updateComponent(PropertyChangeEvent evt) {
+            receivedUpdates.incrementAndGet();
+        }
+
+        @Override
+        public void updateComponent(String propertyName, Object newValue) {
+            receivedUpdates.incrementAndGet();
+        }
+
+        @Override
+        public void updateComponent(String propertyName, double newValue) {
+            receivedUpdates.incrementAndGet();
+            if (SEND_TIME.equals(propertyName)) {
+                updateLatency.record(System.nanoTime() - (long) newValue);
+            }
+        }
+
+        @Override
+        public void updateComponent(String propertyName, boolean newValue) {
+            receivedUpdates.incrementAndGet();
+        }
+    }
+
+    private void run() throws Exception {
+        String mode = option("mode", "all");
+        int port = intOption("port", 7820);
+        int seconds = intOption("seconds", 30);
+        int report = intOption("report", 5);
+
+        List<Thread> threads = new ArrayList<>();
+        if (mode.equals("all") || mode.equals("server")) {
+            threads.add(startServer(port));
+        }
+        if (mode.equals("all") || mode.equals("clients")) {
+            threads.add(startClients(option("host", "localhost"), port));
+        }
+        if (threads.isEmpty()) {
+            throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+
+        System.out.println("  time  updates/s  lat p50/p99/p999 [us]"
+                + "   action p50/p99 [us]  alloc [MB/s]  gc [n/ms]"
+                + "  threads");
+        long start = System.nanoTime();
+        long end = seconds == 0 ? Long.MAX_VALUE
+                : start + seconds * 1_000_000_000L;
+        Stats last = new Stats();
+        while (System.nanoTime() < end) {
+            Thread.sleep(report * 1000L);
+            Stats now = new Stats();
+            printReport((now.time - start) / 1e9, last, now);
+            last = now;
+        }
+        running = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (NetViewAdapter client : clients) {
+            client.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private Thread startServer(int port) throws InterruptedException {
+        Controller controller = new Controller();
+        controller.setTracer(new ActionTracer());
+        String[] mix = option("mix", "60,30").split(",");
+        SyntheticModel model = new SyntheticModel(controller,
+                intOption("properties", 1000), Integer.parseInt(mix[0]),
+                Integer.parseInt(mix[1]));
+        controller.registerModel(model);
+
+        server = new SocketServer(controller, blueprints);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.startServer(port);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }, "Load-Server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+        while (server.getPort() < 0) {
+            Thread.sleep(10);
+        }
+
+        long period = 1_000_000_000L / intOption("rate", 50);
+        Thread modelThread = new Thread(() -> {
+            long next = System.nanoTime();
+            while (running) {
+                model.tick();
+                next += period;
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        Thread.sleep(wait / 1_000_000L,
+                                (int) (wait % 1_000_000L));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }, "Load-Model");
+        modelThread.start();
+        return modelThread;
+    }
+
+    private Thread startClients(String host, int port) throws IOException {
+        int count = intOption("clients", 4);
+        for (int idx = 0; idx < count; idx++) {
+            NetViewAdapter client = new NetViewAdapter(blueprints);
+            client.setTracer(tracer);
+            client.registerUpdater(new LoadReceiver());
+            client.connect(host, port);
+            clients.add(client);
+        }
+        long period = 1_000_000_000L / Math.max(1, intOption("actions", 10));
+        Thread actionThread = new Thread(() -> {
+            long next = System.nanoTime();
+            double value = 0;
+            while (running) {
+                for (NetViewAdapter client : clients) {
+                    try {
+                        client.userAction(new ActionCommand(ACTION, value++));
+                    } catch (IllegalStateException e) {
+                        // reconnecting, action is lost
+                    }
+                }
+                next += period;
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        Thread.sleep(wait / 1_000_000L,
+                                (int) (wait % 1_000_000L));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }, "Load-Actions");
+        actionThread.start();
+        return actionThread;
+    }
+
+    /**
+     * Counters of this JVM at one point in time.
+     */
+    private class Stats {
+
+        final long time = System.nanoTime();
+        final long updates = receivedUpdates.get();
+        final long allocated;
+        final long gcCount;
+        final long gcTime;
+        final int threads;
+
+        Stats() {
+            java.lang.management.ThreadMXBean threadBean
+                    = ManagementFactory.getThreadMXBean();
+            long bytes = -1;
+            if (threadBean instanceof com.sun.management.ThreadMXBean) {
+                // Threads that ended are not included.
+                com.sun.management.ThreadMXBean sunBean
+                        = (com.sun.management.ThreadMXBean) threadBean;
+                bytes = 0;
+                for (long b : sunBean.getThreadAllocatedBytes(
+                        threadBean.getAllThreadIds())) {
+                    bytes += Math.max(0, b);
+                }
+            }
+            allocated = bytes;
+            long count = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean gc
+                    : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, gc.getCollectionCount());
+                millis += Math.max(0, gc.getCollectionTime());
+            }
+            gcCount = count;
+            gcTime = millis;
+            threads = threadBean.getThreadCount();
+        }
+    }
+
+    private void printReport(double elapsed, Stats last, Stats now) {
+        double interval = (now.time - last.time) / 1e9;
+        LatencyHistogram actions
+                = tracer.getHistogram(ActionTracer.Stage.RECEIVED);
+        System.out.printf("%6.0f %10.0f  %6.0f/%6.0f/%7.0f     %7.0f/%8.0f"
+                + "  %12.1f  %4d/%5d  %7d%n",
+                elapsed,
+                (now.updates - last.updates) / interval,
+                updateLatency.getValueAtPercentile(50) / 1e3,
+                updateLatency.getValueAtPercentile(99) / 1e3,
+                updateLatency.getValueAtPercentile(99.9) / 1e3,
+                actions.getValueAtPercentile(50) / 1e3,
+                actions.getValueAtPercentile(99) / 1e3,
+                now.allocated < 0 ? Double.NaN
+                        : (now.allocated - last.allocated) / interval / 1e6,
+                now.gcCount - last.gcCount,
+                now.gcTime - last.gcTime,
+                now.threads);
+        updateLatency.reset();
+        actions.reset();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Logger.getLogger("").setLevel(Level.SEVERE);
+        new NetLoadGenerator(args).run();
+    }
+}
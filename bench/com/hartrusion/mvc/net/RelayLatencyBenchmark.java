@@ -0,0 +1,207 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.mvc.net;
+
+import com.hartrusion.mvc.ActionCommand;
+import com.hartrusion.mvc.Controller;
+import com.hartrusion.mvc.ModelListener;
+import com.hartrusion.mvc.ModelManipulation;
+import com.hartrusion.mvc.UpdateReceiver;
+import java.beans.PropertyChangeEvent;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Measures the latency that each relay adds. A model sends a double value with
+ * its send time at a fixed rate, one client is connected directly to the
+ * server and one client to each relay of a chain. The difference between the
+ * latency of neighboring levels is the latency of one hop.
+ * <p>
+ * Arguments: number of relays (default 3), update rate in Hz (default 1000),
+ * duration in seconds (default 5), first port (default 7800).
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class RelayLatencyBenchmark {
+
+    private static final String PROPERTY = "Benchmark#SendTime";
+
+    /**
+     * Collects the latency of each received update.
+     */
+    private static class LatencyRecorder implements UpdateReceiver {
+
+        private final long base;
+        private long[] samples = new long[1024];
+        private int count;
+
+        LatencyRecorder(long base) {
+            this.base = base;
+        }
+
+        @Override
+        public void updateComponent(PropertyChangeEvent evt) {
+        }
+
+        @Override
+        public void updateComponent(String propertyName, Object newValue) {
+        }
+
+        @Override
+        public synchronized void updateComponent(String propertyName,
+                double newValue) {
+            if (!PROPERTY.equals(propertyName)) {
+                return;
+            }
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = System.nanoTime() - base - (long) newValue;
+        }
+
+        @Override
+        public void updateComponent(String propertyName, boolean newValue) {
+        }
+
+        synchronized long percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) (p * count))];
+        }
+
+        synchronized int count() {
+            return count;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int relays = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int firstPort = args.length > 3 ? Integer.parseInt(args[3]) : 7800;
+
+        Logger.getLogger("").setLevel(Level.SEVERE);
+
+        ClassBlueprints blueprints = new ClassBlueprints();
+        blueprints.registerType(Double.class,
+                (out, value) -> out.writeDouble(value),
+                (in) -> in.readDouble());
+
+        Controller controller = new Controller();
+        controller.registerModel(new ModelManipulation() {
+            @Override
+            public void updateNotification(String propertyName) {
+            }
+
+            @Override
+            public void handleAction(ActionCommand ac) {
+            }
+
+            @Override
+            public void registerController(ModelListener controller) {
+            }
+        });
+
+        SocketServer server = new SocketServer(controller, blueprints);
+        startInBackground(server, firstPort);
+
+        long base = System.nanoTime();
+        LatencyRecorder[] recorders = new LatencyRecorder[relays + 1];
+        NetViewAdapter[] clients = new NetViewAdapter[relays + 1];
+        NetRelay[] chain = new NetRelay[relays];
+        for (int level = 0; level <= relays; level++) {
+            int port = firstPort + level;
+            if (level > 0) {
+                chain[level - 1] = new NetRelay(blueprints);
+                chain[level - 1].start("localhost", port - 1, port);
+                waitForPort(chain[level - 1].getServer());
+            }
+            recorders[level] = new LatencyRecorder(base);
+            clients[level] = new NetViewAdapter(blueprints);
+            clients[level].registerUpdater(recorders[level]);
+            clients[level].connect("localhost", port);
+        }
+
+        // Send the time at a fixed rate, the value is relative to base to
+        // stay exact within the precision of a double.
+        long period = 1_000_000_000L / rate;
+        long next = System.nanoTime();
+        long end = next + seconds * 1_000_000_000L;
+        while (next < end) {
+            while (System.nanoTime() < next) {
+                Thread.onSpinWait();
+            }
+            controller.propertyChange(PROPERTY,
+                    (double) (System.nanoTime() - base));
+            next += period;
+        }
+        Thread.sleep(500);
+
+        System.out.println("Level  Updates      p50 [us]     p99 [us]"
+                + "   added p50 [us]");
+        long previous = 0;
+        for (int level = 0; level <= relays; level++) {
+            long p50 = recorders[level].percentile(0.5);
+            long p99 = recorders[level].percentile(0.99);
+            System.out.printf("%5d  %7d  %12.1f %12.1f %16.1f%n", level,
+                    recorders[level].count(), p50 / 1e3, p99 / 1e3,
+                    level == 0 ? 0.0 : (p50 - previous) / 1e3);
+            previous = p50;
+        }
+
+        for (NetViewAdapter client : clients) {
+            client.close();
+        }
+        for (NetRelay relay : chain) {
+            relay.close();
+        }
+        server.close();
+    }
+
+    private static void startInBackground(SocketServer server, int port)
+            throws InterruptedException {
+        Thread t = new Thread(() -> {
+            try {
+                server.startServer(port);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }, "Benchmark-Server");
+        t.setDaemon(true);
+        t.start();
+        waitForPort(server);
+    }
+
+    private static void waitForPort(SocketServer server)
+            throws InterruptedException {
+        while (server.getPort() < 0) {
+            Thread.sleep(10);
+        }
+    }
+}
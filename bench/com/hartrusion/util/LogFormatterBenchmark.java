@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Compares the OneLineFormatter with its previous implementation, which
+ * formatted the time with a DateTimeFormatter and built a new StringBuilder
+ * for each record. Prints the time and the allocated bytes per record for
+ * format, which returns a String, and for encode into a byte buffer.
+ * <p>
+ * A simple loop with warm up, not a JMH benchmark. The allocation figures
+ * come from the thread allocation counter of the JVM. Argument: number of
+ * records per measurement (default 1000000).
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class LogFormatterBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private static int sink;
+
+    /**
+     * The formatter as it was before it was optimized.
+     */
+    private static class PreviousFormatter extends Formatter {
+
+        private static final DateTimeFormatter TIME_FMT
+                = DateTimeFormatter.ofPattern("HH:mm:ss:SSS")
+                        .withZone(ZoneId.systemDefault());
+
+        @Override
+        public String format(LogRecord record) {
+            String time = TIME_FMT.format(
+                    Instant.ofEpochMilli(record.getMillis()));
+            String source = record.getSourceClassName();
+            int idx = source.lastIndexOf('.');
+            if (idx >= 0) {
+                source = source.substring(idx + 1);
+            }
+            String message = formatMessage(record);
+            StringBuilder sb = new StringBuilder(128);
+            sb.append(time).append(' ').append(record.getLevel().getName())
+                    .append(' ').append('(').append(source).append(')')
+                    .append(':').append(' ').append(message)
+                    .append(System.lineSeparator());
+            return sb.toString();
+        }
+    }
+
+    private interface Task {
+
+        void run(LogRecord record);
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        LogRecord[] records = new LogRecord[1024];
+        long start = System.currentTimeMillis();
+        for (int idx = 0; idx < records.length; idx++) {
+            LogRecord record = new LogRecord(Level.FINE,
+                    "Update of property received, queue depth ok.");
+            record.setSourceClassName(
+                    "com.hartrusion.mvc.net.NetViewAdapter");
+            record.setSourceMethodName("readMessages");
+            // Several records per millisecond, like at high log rates.
+            record.setInstant(Instant.ofEpochMilli(start + idx / 8));
+            records[idx] = record;
+        }
+
+        PreviousFormatter previous = new PreviousFormatter();
+        OneLineFormatter current = new OneLineFormatter();
+        ByteBuffer[] buffer = {ByteBuffer.allocate(1 << 16)};
+
+        String[] names = {"previous format", "format", "encode"};
+        Task[] tasks = {
+            r -> sink += previous.format(r).length(),
+            r -> sink += current.format(r).length(),
+            r -> {
+                buffer[0].clear();
+                buffer[0] = current.encode(r, buffer[0]);
+                sink += buffer[0].position();
+            }};
+
+        System.out.printf("%-16s %10s %14s%n", "variant", "ns/record",
+                "bytes/record");
+        for (int idx = 0; idx < tasks.length; idx++) {
+            double[] result = {0, 0};
+            for (int round = 0; round < ROUNDS; round++) {
+                result = measure(tasks[idx], records, count);
+            }
+            System.out.printf("%-16s %10.1f %14.1f%n", names[idx],
+                    result[0], result[1]);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Returns time in nanoseconds and allocated bytes per record.
+     */
+    private static double[] measure(Task task, LogRecord[] records,
+            int count) {
+        com.sun.management.ThreadMXBean threads
+                = (com.sun.management.ThreadMXBean) ManagementFactory
+                        .getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long bytes = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int idx = 0; idx < count; idx++) {
+            task.run(records[idx & (records.length - 1)]);
+        }
+        long time = System.nanoTime() - start;
+        bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+        return new double[]{(double) time / count, (double) bytes / count};
+    }
+}
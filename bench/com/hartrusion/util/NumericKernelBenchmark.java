@@ -0,0 +1,127 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.util.Random;
+
+/**
+ * Compares the numeric functions of ArraysExt with the scalar loops on
+ * several array sizes. Prints the time per element for each function. The
+ * vector API is only used if the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}, otherwise both columns show the
+ * scalar version.
+ * <p>
+ * This is a simple loop with warm up, not a JMH benchmark, so the results
+ * are an indication only. Arguments: array sizes (default 100 1000 10000
+ * 100000 1000000).
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class NumericKernelBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final long MEASURE_NANOS = 200_000_000L;
+
+    /**
+     * Prevents the JIT compiler from removing the benchmarked calls.
+     */
+    private static double sink;
+
+    private interface Kernel {
+
+        void run(NumericKernels k, double[] a, double[] b, double[] t);
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = {100, 1000, 10000, 100000, 1000000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int idx = 0; idx < args.length; idx++) {
+                sizes[idx] = Integer.parseInt(args[idx]);
+            }
+        }
+        NumericKernels scalar = new NumericKernels();
+        NumericKernels selected = NumericKernels.INSTANCE;
+        System.out.println("Vector API: " + selected.isVectorized());
+
+        String[] names = {"sum", "scale", "add", "multiply", "min", "max",
+            "dot", "clamp"};
+        Kernel[] kernels = {
+            (k, a, b, t) -> sink += k.sum(a),
+            (k, a, b, t) -> k.scale(t, 1.0000001),
+            (k, a, b, t) -> k.add(t, a, b),
+            (k, a, b, t) -> k.multiply(t, a, b),
+            (k, a, b, t) -> sink += k.min(a),
+            (k, a, b, t) -> sink += k.max(a),
+            (k, a, b, t) -> sink += k.dot(a, b),
+            (k, a, b, t) -> k.clamp(t, -0.5, 0.5)};
+
+        System.out.printf("%-10s %10s %12s %12s %8s%n", "function", "size",
+                "scalar ns/el", "select ns/el", "speedup");
+        Random random = new Random(1);
+        for (int size : sizes) {
+            double[] a = new double[size];
+            double[] b = new double[size];
+            double[] t = new double[size];
+            for (int idx = 0; idx < size; idx++) {
+                a[idx] = random.nextDouble() - 0.5;
+                b[idx] = random.nextDouble() - 0.5;
+                t[idx] = random.nextDouble() - 0.5;
+            }
+            for (int idx = 0; idx < kernels.length; idx++) {
+                double s = measure(kernels[idx], scalar, a, b, t);
+                double v = measure(kernels[idx], selected, a, b, t);
+                System.out.printf("%-10s %10d %12.3f %12.3f %8.2f%n",
+                        names[idx], size, s / size, v / size, s / v);
+            }
+        }
+        if (sink == 42.0) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Returns the mean time of one call in nanoseconds.
+     */
+    private static double measure(Kernel kernel, NumericKernels k,
+            double[] a, double[] b, double[] t) {
+        long calls = Math.max(1, 1_000_000 / a.length);
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (long call = 0; call < calls * 10; call++) {
+                kernel.run(k, a, b, t);
+            }
+        }
+        long count = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (long call = 0; call < calls; call++) {
+                kernel.run(k, a, b, t);
+            }
+            count += calls;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MEASURE_NANOS);
+        return (double) elapsed / count;
+    }
+}
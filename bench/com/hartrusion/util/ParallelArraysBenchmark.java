@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures the sequential and the parallel version of each ParallelArrays
+ * operation on growing array sizes and prints the smallest size at which the
+ * parallel version was more than 10 % faster. This is the crossover point
+ * that can be used with ParallelArrays.setThreshold.
+ * <p>
+ * A simple loop with warm up, not a JMH benchmark. Arguments: largest array
+ * size (default 16777216), sizes start at two blocks and grow by factor 4.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class ParallelArraysBenchmark {
+
+    private static final long MEASURE_NANOS = 200_000_000L;
+
+    private static double sink;
+
+    private interface Operation {
+
+        void run(double[] a, double[] t);
+    }
+
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 24;
+        System.out.println("Common pool parallelism: "
+                + ForkJoinPool.getCommonPoolParallelism());
+
+        String[] names = {"fill", "copy", "transform", "sum", "min",
+            "prefixSum"};
+        Operation[] operations = {
+            (a, t) -> ParallelArrays.fill(t, 1.5),
+            (a, t) -> ParallelArrays.copy(a, t),
+            (a, t) -> ParallelArrays.transform(t, a, Math::sin),
+            (a, t) -> sink += ParallelArrays.blockwiseSum(a),
+            (a, t) -> sink += ParallelArrays.min(a),
+            (a, t) -> ParallelArrays.blockwisePrefixSum(t, a)};
+        int[] crossover = new int[names.length];
+
+        System.out.printf("%-10s %10s %12s %12s %8s%n", "operation", "size",
+                "seq ms", "par ms", "speedup");
+        Random random = new Random(1);
+        for (int size = 2 * ParallelArrays.BLOCK_SIZE; size <= maxSize; size *= 4) {
+            double[] a = new double[size];
+            double[] t = new double[size];
+            for (int idx = 0; idx < size; idx++) {
+                a[idx] = random.nextDouble();
+            }
+            for (int op = 0; op < operations.length; op++) {
+                ParallelArrays.setThreshold(Integer.MAX_VALUE);
+                double seq = measure(operations[op], a, t);
+                ParallelArrays.setThreshold(0);
+                double par = measure(operations[op], a, t);
+                System.out.printf("%-10s %10d %12.4f %12.4f %8.2f%n",
+                        names[op], size, seq / 1e6, par / 1e6, seq / par);
+                if (seq / par > 1.1 && crossover[op] == 0) {
+                    crossover[op] = size;
+                }
+            }
+        }
+        System.out.println();
+        for (int op = 0; op < names.length; op++) {
+            System.out.printf("%-10s crossover: %s%n", names[op],
+                    crossover[op] == 0 ? "none" : crossover[op]);
+        }
+        if (sink == 42.0) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Returns the mean time of one call in nanoseconds.
+     */
+    private static double measure(Operation operation, double[] a,
+            double[] t) {
+        long calls = Math.max(1, 4_000_000 / a.length);
+        for (long call = 0; call < calls * 5; call++) {
+            operation.run(a, t);
+        }
+        long count = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (long call = 0; call < calls; call++) {
+                operation.run(a, t);
+            }
+            count += calls;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MEASURE_NANOS);
+        return (double) elapsed / count;
+    }
+}
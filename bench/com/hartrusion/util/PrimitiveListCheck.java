@@ -0,0 +1,273 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the primitive lists against java.util.ArrayList. Each list gets a
+ * long sequence of random appends, inserts, removals and replacements, the
+ * return value of every operation and, at regular intervals, the whole
+ * content are compared with the ArrayList doing the same operations.
+ * <p>
+ * The lists are copies of one template with different value types. The int
+ * and the boolean instance are checked.
+ * <p>
+ * Throws an IllegalStateException on the first difference. Arguments:
+ * number of operations per list (default 1000000), random seed (default 1).
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class PrimitiveListCheck {
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0])
+                : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        checkIntList(new Random(seed), operations);
+        checkBooleanList(new Random(seed), operations);
+        System.out.println("PrimitiveListCheck: " + operations
+                + " operations on each list passed.");
+    }
+
+    private static void checkIntList(Random random, int operations) {
+        IntList list = new IntList(random.nextInt(4));
+        List<Integer> reference = new ArrayList<>();
+        for (int op = 0; op < operations; op++) {
+            int size = reference.size();
+            int value = random.nextInt(64);
+            switch (random.nextInt(12)) {
+                case 0:
+                case 1:
+                    list.add(value);
+                    reference.add(value);
+                    break;
+                case 2: {
+                    int index = random.nextInt(size + 1);
+                    list.add(index, value);
+                    reference.add(index, value);
+                    break;
+                }
+                case 3: {
+                    int[] values = new int[random.nextInt(8)];
+                    for (int idx = 0; idx < values.length; idx++) {
+                        values[idx] = random.nextInt(64);
+                    }
+                    int offset = random.nextInt(values.length + 1);
+                    int length = random.nextInt(values.length - offset + 1);
+                    list.addAll(values, offset, length);
+                    for (int idx = offset; idx < offset + length; idx++) {
+                        reference.add(values[idx]);
+                    }
+                    break;
+                }
+                case 4:
+                    if (size > 0) {
+                        int index = random.nextInt(size);
+                        check(list.set(index, value)
+                                == reference.set(index, value),
+                                "IntList.set", op);
+                    }
+                    break;
+                case 5:
+                case 6:
+                    if (size > 0) {
+                        int index = random.nextInt(size);
+                        check(list.removeAt(index)
+                                == reference.remove(index),
+                                "IntList.removeAt", op);
+                    }
+                    break;
+                case 7:
+                    if (size > 0) {
+                        check(list.removeLast()
+                                == reference.remove(size - 1),
+                                "IntList.removeLast", op);
+                    }
+                    break;
+                case 8:
+                    check(list.indexOf(value) == reference.indexOf(value),
+                            "IntList.indexOf", op);
+                    break;
+                case 9:
+                    if (size > 0) {
+                        int index = random.nextInt(size);
+                        check(list.get(index) == reference.get(index),
+                                "IntList.get", op);
+                    }
+                    check(outOfBounds(() -> list.get(size)), "IntList.get",
+                            op);
+                    break;
+                case 10:
+                    if (size < 64) {
+                        list.addAll(new IntList(list.toArray()));
+                        reference.addAll(new ArrayList<>(reference));
+                    }
+                    break;
+                default:
+                    if (random.nextInt(1000) == 0) {
+                        list.clear();
+                        reference.clear();
+                    } else if (random.nextInt(100) == 0) {
+                        list.trimToSize();
+                    }
+                    break;
+            }
+            if (op % 100 == 0) {
+                check(list.size() == reference.size(), "IntList.size", op);
+                check(list.toString().equals(reference.toString()),
+                        "IntList content", op);
+                List<Integer> content = new ArrayList<>();
+                list.forEach(content::add);
+                check(content.equals(reference), "IntList.forEach", op);
+                int[] copy = new int[list.size()];
+                list.copyTo(copy);
+                for (int idx = 0; idx < copy.length; idx++) {
+                    check(copy[idx] == reference.get(idx)
+                            && list.array()[idx] == copy[idx],
+                            "IntList.copyTo", op);
+                }
+            }
+        }
+    }
+
+    private static void checkBooleanList(Random random, int operations) {
+        BooleanList list = new BooleanList(random.nextInt(4));
+        List<Boolean> reference = new ArrayList<>();
+        for (int op = 0; op < operations; op++) {
+            int size = reference.size();
+            boolean value = random.nextInt(8) == 0;
+            switch (random.nextInt(12)) {
+                case 0:
+                case 1:
+                    list.add(value);
+                    reference.add(value);
+                    break;
+                case 2: {
+                    int index = random.nextInt(size + 1);
+                    list.add(index, value);
+                    reference.add(index, value);
+                    break;
+                }
+                case 3: {
+                    boolean[] values = new boolean[random.nextInt(8)];
+                    for (int idx = 0; idx < values.length; idx++) {
+                        values[idx] = random.nextBoolean();
+                    }
+                    int offset = random.nextInt(values.length + 1);
+                    int length = random.nextInt(values.length - offset + 1);
+                    list.addAll(values, offset, length);
+                    for (int idx = offset; idx < offset + length; idx++) {
+                        reference.add(values[idx]);
+                    }
+                    break;
+                }
+                case 4:
+                    if (size > 0) {
+                        int index = random.nextInt(size);
+                        check(list.set(index, value)
+                                == reference.set(index, value),
+                                "BooleanList.set", op);
+                    }
+                    break;
+                case 5:
+                case 6:
+                    if (size > 0) {
+                        int index = random.nextInt(size);
+                        check(list.removeAt(index)
+                                == reference.remove(index),
+                                "BooleanList.removeAt", op);
+                    }
+                    break;
+                case 7:
+                    if (size > 0) {
+                        check(list.removeLast()
+                                == reference.remove(size - 1),
+                                "BooleanList.removeLast", op);
+                    }
+                    break;
+                case 8:
+                    check(list.indexOf(value) == reference.indexOf(value),
+                            "BooleanList.indexOf", op);
+                    break;
+                case 9:
+                    if (size > 0) {
+                        int index = random.nextInt(size);
+                        check(list.get(index) == reference.get(index),
+                                "BooleanList.get", op);
+                    }
+                    check(outOfBounds(() -> list.get(size)),
+                            "BooleanList.get", op);
+                    break;
+                case 10:
+                    if (size < 64) {
+                        list.addAll(new BooleanList(list.toArray()));
+                        reference.addAll(new ArrayList<>(reference));
+                    }
+                    break;
+                default:
+                    if (random.nextInt(1000) == 0) {
+                        list.clear();
+                        reference.clear();
+                    } else if (random.nextInt(100) == 0) {
+                        list.trimToSize();
+                    }
+                    break;
+            }
+            if (op % 100 == 0) {
+                check(list.size() == reference.size(), "BooleanList.size",
+                        op);
+                check(list.toString().equals(reference.toString()),
+                        "BooleanList content", op);
+                List<Boolean> content = new ArrayList<>();
+                list.forEach(content::add);
+                check(content.equals(reference), "BooleanList.forEach", op);
+                boolean[] copy = new boolean[list.size()];
+                list.copyTo(copy);
+                for (int idx = 0; idx < copy.length; idx++) {
+                    check(copy[idx] == reference.get(idx)
+                            && list.array()[idx] == copy[idx],
+                            "BooleanList.copyTo", op);
+                }
+            }
+        }
+    }
+
+    private static boolean outOfBounds(Runnable access) {
+        try {
+            access.run();
+            return false;
+        } catch (IndexOutOfBoundsException e) {
+            return true;
+        }
+    }
+
+    private static void check(boolean condition, String what, int at) {
+        if (!condition) {
+            throw new IllegalStateException(what + " differs at " + at);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Checks the primitive maps against java.util.HashMap. Each map gets a long
+ * sequence of random puts, additions and removals on a small key range, so
+ * the table grows, gets collisions and has entries moved back on removal.
+ * The return value of every operation and, at regular intervals, the whole
+ * content are compared with the HashMap doing the same operations.
+ * <p>
+ * The maps are copies of two templates, int keys and object keys, with
+ * different value types. One int value and one boolean value instance of
+ * each template is checked, the boolean variants lack addTo.
+ * <p>
+ * Throws an IllegalStateException on the first difference. Arguments:
+ * number of operations per map (default 1000000), random seed (default 1).
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class PrimitiveMapCheck {
+
+    /**
+     * Key with a hash code of few bits, so the object maps get collisions.
+     */
+    private static final class Key {
+
+        final int id;
+
+        Key(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id & 0x3F;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && ((Key) obj).id == id;
+        }
+    }
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0])
+                : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        checkIntIntMap(new Random(seed), operations);
+        checkIntBooleanMap(new Random(seed), operations);
+        checkObjectIntMap(new Random(seed), operations);
+        checkObjectBooleanMap(new Random(seed), operations);
+        System.out.println("PrimitiveMapCheck: " + operations
+                + " operations on each map passed.");
+    }
+
+    /**
+     * Keys around 0, as 0 is held outside of the table.
+     */
+    private static int intKey(Random random) {
+        return random.nextInt(2048) - 1024;
+    }
+
+    private static void checkIntIntMap(Random random, int operations) {
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> reference = new HashMap<>();
+        for (int op = 0; op < operations; op++) {
+            int key = intKey(random);
+            int value = random.nextInt();
+            switch (random.nextInt(8)) {
+                case 0:
+                case 1:
+                case 2: {
+                    Integer old = reference.put(key, value);
+                    check(map.put(key, value) == (old == null ? 0 : old),
+                            "IntIntMap.put", key);
+                    break;
+                }
+                case 3: {
+                    int sum = reference.merge(key, value, Integer::sum);
+                    check(map.addTo(key, value) == sum, "IntIntMap.addTo",
+                            key);
+                    break;
+                }
+                case 4:
+                case 5: {
+                    Integer old = reference.remove(key);
+                    check(map.remove(key) == (old == null ? 0 : old),
+                            "IntIntMap.remove", key);
+                    break;
+                }
+                case 6: {
+                    check(map.containsKey(key) == reference.containsKey(key),
+                            "IntIntMap.containsKey", key);
+                    check(map.getOrDefault(key, -7)
+                            == reference.getOrDefault(key, -7),
+                            "IntIntMap.getOrDefault", key);
+                    break;
+                }
+                default:
+                    if (random.nextInt(10000) == 0) {
+                        map.clear();
+                        reference.clear();
+                    }
+                    break;
+            }
+            if (op % 1000 == 0) {
+                Map<Integer, Integer> content = new HashMap<>();
+                map.forEach((k, v) -> check(content.put(k, v) == null,
+                        "IntIntMap.forEach duplicate", k));
+                check(content.equals(reference), "IntIntMap content", op);
+                check(map.size() == reference.size(), "IntIntMap.size", op);
+            }
+        }
+    }
+
+    private static void checkIntBooleanMap(Random random, int operations) {
+        IntBooleanMap map = new IntBooleanMap();
+        Map<Integer, Boolean> reference = new HashMap<>();
+        for (int op = 0; op < operations; op++) {
+            int key = intKey(random);
+            boolean value = random.nextBoolean();
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1: {
+                    Boolean old = reference.put(key, value);
+                    check(map.put(key, value) == (old != null && old),
+                            "IntBooleanMap.put", key);
+                    break;
+                }
+                case 2:
+                case 3: {
+                    Boolean old = reference.remove(key);
+                    check(map.remove(key) == (old != null && old),
+                            "IntBooleanMap.remove", key);
+                    break;
+                }
+                case 4: {
+                    check(map.containsKey(key) == reference.containsKey(key),
+                            "IntBooleanMap.containsKey", key);
+                    check(map.getOrDefault(key, true)
+                            == reference.getOrDefault(key, true),
+                            "IntBooleanMap.getOrDefault", key);
+                    break;
+                }
+                default:
+                    if (random.nextInt(10000) == 0) {
+                        map.clear();
+                        reference.clear();
+                    }
+                    break;
+            }
+            if (op % 1000 == 0) {
+                Map<Integer, Boolean> content = new HashMap<>();
+                map.forEach((k, v) -> check(content.put(k, v) == null,
+                        "IntBooleanMap.forEach duplicate", k));
+                check(content.equals(reference), "IntBooleanMap content", op);
+                check(map.size() == reference.size(), "IntBooleanMap.size",
+                        op);
+            }
+        }
+    }
+
+    private static void checkObjectIntMap(Random random, int operations) {
+        ObjectIntMap<Key> map = new ObjectIntMap<>();
+        Map<Key, Integer> reference = new HashMap<>();
+        for (int op = 0; op < operations; op++) {
+            Key key = new Key(intKey(random));
+            int value = random.nextInt();
+            switch (random.nextInt(8)) {
+                case 0:
+                case 1:
+                case 2: {
+                    Integer old = reference.put(key, value);
+                    check(map.put(key, value) == (old == null ? 0 : old),
+                            "ObjectIntMap.put", key.id);
+                    break;
+                }
+                case 3: {
+                    int sum = reference.merge(key, value, Integer::sum);
+                    check(map.addTo(key, value) == sum,
+                            "ObjectIntMap.addTo", key.id);
+                    break;
+                }
+                case 4:
+                case 5: {
+                    Integer old = reference.remove(key);
+                    check(map.remove(key) == (old == null ? 0 : old),
+                            "ObjectIntMap.remove", key.id);
+                    break;
+                }
+                case 6: {
+                    check(map.containsKey(key) == reference.containsKey(key),
+                            "ObjectIntMap.containsKey", key.id);
+                    check(map.getOrDefault(key, -7)
+                            == reference.getOrDefault(key, -7),
+                            "ObjectIntMap.getOrDefault", key.id);
+                    break;
+                }
+                default:
+                    if (random.nextInt(10000) == 0) {
+                        map.clear();
+                        reference.clear();
+                    }
+                    break;
+            }
+            if (op % 1000 == 0) {
+                Map<Key, Integer> content = new HashMap<>();
+                map.forEach((k, v) -> check(content.put(k, v) == null,
+                        "ObjectIntMap.forEach duplicate", k.id));
+                check(content.equals(reference), "ObjectIntMap content", op);
+                check(map.size() == reference.size(), "ObjectIntMap.size",
+                        op);
+            }
+        }
+    }
+
+    private static void checkObjectBooleanMap(Random random,
+            int operations) {
+        ObjectBooleanMap<Key> map = new ObjectBooleanMap<>();
+        Map<Key, Boolean> reference = new HashMap<>();
+        for (int op = 0; op < operations; op++) {
+            Key key = new Key(intKey(random));
+            boolean value = random.nextBoolean();
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1: {
+                    Boolean old = reference.put(key, value);
+                    check(map.put(key, value) == (old != null && old),
+                            "ObjectBooleanMap.put", key.id);
+                    break;
+                }
+                case 2:
+                case 3: {
+                    Boolean old = reference.remove(key);
+                    check(map.remove(key) == (old != null && old),
+                            "ObjectBooleanMap.remove", key.id);
+                    break;
+                }
+                case 4: {
+                    check(map.containsKey(key) == reference.containsKey(key),
+                            "ObjectBooleanMap.containsKey", key.id);
+                    check(map.getOrDefault(key, true)
+                            == reference.getOrDefault(key, true),
+                            "ObjectBooleanMap.getOrDefault", key.id);
+                    break;
+                }
+                default:
+                    if (random.nextInt(10000) == 0) {
+                        map.clear();
+                        reference.clear();
+                    }
+                    break;
+            }
+            if (op % 1000 == 0) {
+                Map<Key, Boolean> content = new HashMap<>();
+                map.forEach((k, v) -> check(content.put(k, v) == null,
+                        "ObjectBooleanMap.forEach duplicate", k.id));
+                check(content.equals(reference), "ObjectBooleanMap content",
+                        op);
+                check(map.size() == reference.size(),
+                        "ObjectBooleanMap.size", op);
+            }
+        }
+    }
+
+    private static void check(boolean condition, String what, int at) {
+        if (!condition) {
+            throw new IllegalStateException(what + " differs at " + at);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks the ring buffers against arrays maintained with
+ * ArraysExt.leftShiftInsert, which defines their index order. Buffers of
+ * several capacities get random pushes and clears, after each operation the
+ * values by index, a copy of random length and the size are compared.
+ * <p>
+ * The concurrent mode is checked with one thread pushing increasing values
+ * while other threads copy the buffer. Each copy has to be one consistent
+ * state, which is a sequence decreasing by one from index 0.
+ * <p>
+ * The buffers are copies of one template with different value types. The int
+ * and the boolean instance are checked.
+ * <p>
+ * Throws an IllegalStateException on the first difference. Arguments:
+ * number of operations per buffer (default 200000), random seed (default 1).
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class RingBufferCheck {
+
+    private static final int[] CAPACITIES = {1, 2, 3, 16, 100};
+
+    public static void main(String[] args) throws InterruptedException {
+        int operations = args.length > 0 ? Integer.parseInt(args[0])
+                : 200_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        Random random = new Random(seed);
+        for (int capacity : CAPACITIES) {
+            checkIntRingBuffer(random, capacity, false, operations);
+            checkIntRingBuffer(random, capacity, true, operations);
+            checkBooleanRingBuffer(random, capacity, operations);
+        }
+        checkConcurrentReads(operations);
+        System.out.println("RingBufferCheck: " + operations
+                + " operations on each buffer passed.");
+    }
+
+    private static void checkIntRingBuffer(Random random, int capacity,
+            boolean concurrent, int operations) {
+        IntRingBuffer buffer = new IntRingBuffer(capacity, concurrent);
+        int[] reference = new int[capacity];
+        int pushed = 0;
+        for (int op = 0; op < operations; op++) {
+            if (random.nextInt(5000) == 0) {
+                buffer.clear();
+                Arrays.fill(reference, 0);
+                pushed = 0;
+            } else {
+                int value = random.nextInt();
+                buffer.push(value);
+                ArraysExt.leftShiftInsert(reference, value);
+                pushed++;
+            }
+            int index = random.nextInt(capacity);
+            check(buffer.get(index) == reference[index],
+                    "IntRingBuffer.get", op);
+            int length = random.nextInt(capacity + 1);
+            int[] copy = new int[length];
+            buffer.copyTo(copy, length);
+            check(Arrays.equals(copy, 0, length, reference, 0, length),
+                    "IntRingBuffer.copyTo", op);
+            check(buffer.size() == Math.min(pushed, capacity),
+                    "IntRingBuffer.size", op);
+        }
+        check(Arrays.equals(buffer.toArray(), reference),
+                "IntRingBuffer.toArray", operations);
+    }
+
+    private static void checkBooleanRingBuffer(Random random, int capacity,
+            int operations) {
+        BooleanRingBuffer buffer = new BooleanRingBuffer(capacity);
+        boolean[] reference = new boolean[capacity];
+        int pushed = 0;
+        for (int op = 0; op < operations; op++) {
+            if (random.nextInt(5000) == 0) {
+                buffer.clear();
+                Arrays.fill(reference, false);
+                pushed = 0;
+            } else {
+                boolean value = random.nextBoolean();
+                buffer.push(value);
+                ArraysExt.leftShiftInsert(reference, value);
+                pushed++;
+            }
+            int index = random.nextInt(capacity);
+            check(buffer.get(index) == reference[index],
+                    "BooleanRingBuffer.get", op);
+            int length = random.nextInt(capacity + 1);
+            boolean[] copy = new boolean[length];
+            buffer.copyTo(copy, length);
+            check(Arrays.equals(copy, 0, length, reference, 0, length),
+                    "BooleanRingBuffer.copyTo", op);
+            check(buffer.size() == Math.min(pushed, capacity),
+                    "BooleanRingBuffer.size", op);
+        }
+        check(Arrays.equals(buffer.toArray(), reference),
+                "BooleanRingBuffer.toArray", operations);
+    }
+
+    /**
+     * Pushes 1, 2, 3 and so on while readers copy the buffer, until the
+     * readers made the given number of copies. A copy mixing two states
+     * would not decrease by one.
+     */
+    private static void checkConcurrentReads(int copies)
+            throws InterruptedException {
+        IntRingBuffer buffer = new IntRingBuffer(1000, true);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong copied = new AtomicLong();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[2];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                int[] copy = new int[1000];
+                while (!done.get()) {
+                    buffer.copyTo(copy);
+                    copied.incrementAndGet();
+                    int valid = Math.min(copy[0], copy.length);
+                    for (int idx = 1; idx < valid; idx++) {
+                        if (copy[idx] != copy[0] - idx) {
+                            failure.compareAndSet(null, "copy of push "
+                                    + copy[0] + " at index " + idx);
+                            return;
+                        }
+                    }
+                }
+            });
+            readers[r].start();
+        }
+        int value = 0;
+        while (copied.get() < copies && failure.get() == null) {
+            buffer.push(++value);
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException(
+                    "IntRingBuffer concurrent read inconsistent, "
+                    + failure.get());
+        }
+    }
+
+    private static void check(boolean condition, String what, int at) {
+        if (!condition) {
+            throw new IllegalStateException(what + " differs at " + at);
+        }
+    }
+}
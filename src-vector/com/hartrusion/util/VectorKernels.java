@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Numeric array functions using the vector API, which lets the JIT compiler
+ * use SIMD instructions of the CPU. Each loop processes as many values as fit
+ * into the preferred vector size and handles the remaining values scalar.
+ * <p>
+ * Only the reductions are implemented here. The JIT compiler does not
+ * vectorize a floating point sum by itself because that changes the order of
+ * the additions, but it does vectorize element wise loops like scale or add.
+ * Those were measured with NumericKernelBenchmark and were not faster with the
+ * vector API, so the scalar versions are inherited.
+ * <p>
+ * This class must only be loaded if the module jdk.incubator.vector is
+ * present, NumericKernels takes care of that.
+ *
+ * @author Viktor Alexander Hartung
+ */
+final class VectorKernels extends NumericKernels {
+
+    private static final VectorSpecies<Double> SPECIES
+            = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    double sum(double[] a) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(a.length);
+        int idx = 0;
+        for (; idx < bound; idx += SPECIES.length()) {
+            acc = acc.add(DoubleVector.fromArray(SPECIES, a, idx));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; idx < a.length; idx++) {
+            sum += a[idx];
+        }
+        return sum;
+    }
+
+    @Override
+    double min(double[] a) {
+        DoubleVector acc = DoubleVector.broadcast(SPECIES,
+                Double.POSITIVE_INFINITY);
+        int bound = SPECIES.loopBound(a.length);
+        int idx = 0;
+        for (; idx < bound; idx += SPECIES.length()) {
+            acc = acc.min(DoubleVector.fromArray(SPECIES, a, idx));
+        }
+        double min = acc.reduceLanes(VectorOperators.MIN);
+        for (; idx < a.length; idx++) {
+            min = Math.min(min, a[idx]);
+        }
+        return min;
+    }
+
+    @Override
+    double max(double[] a) {
+        DoubleVector acc = DoubleVector.broadcast(SPECIES,
+                Double.NEGATIVE_INFINITY);
+        int bound = SPECIES.loopBound(a.length);
+        int idx = 0;
+        for (; idx < bound; idx += SPECIES.length()) {
+            acc = acc.max(DoubleVector.fromArray(SPECIES, a, idx));
+        }
+        double max = acc.reduceLanes(VectorOperators.MAX);
+        for (; idx < a.length; idx++) {
+            max = Math.max(max, a[idx]);
+        }
+        return max;
+    }
+
+    @Override
+    double dot(double[] a, double[] b) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(a.length);
+        int idx = 0;
+        for (; idx < bound; idx += SPECIES.length()) {
+            acc = acc.add(DoubleVector.fromArray(SPECIES, a, idx)
+                    .mul(DoubleVector.fromArray(SPECIES, b, idx)));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; idx < a.length; idx++) {
+            sum += a[idx] * b[idx];
+        }
+        return sum;
+    }
+}
@@ -44,6 +44,17 @@ public class ActionCommand {
      */
     Object value;
 
+    /**
+     * Identifies a traced action, 0 if the action is not traced.
+     */
+    long traceId;
+
+    /**
+     * System.nanoTime() when the action was created or entered this process,
+     * only set for traced actions.
+     */
+    long timestamp;
+
     /**
      * Constructs a new {@code ActionEvent}.
      *
@@ -62,6 +73,35 @@ public class ActionCommand {
         this.value = value;
     }
 
+    /**
+     * Constructs a new traced {@code ActionEvent}. The timestamp will be set
+     * to the current time.
+     *
+     * @param propertyName the programmatic name of the property that was
+     * changed
+     * @param value the value of the property (can be null)
+     * @param traceId ID to trace the action, see ActionTracer.
+     *
+     * @throws IllegalArgumentException if {@code propertyName} is {@code null}.
+     */
+    public ActionCommand(String propertyName, Object value, long traceId) {
+        this(propertyName, value);
+        this.traceId = traceId;
+        this.timestamp = System.nanoTime();
+    }
+
+    /**
+     * Makes this a traced action if it is not traced yet.
+     *
+     * @param tracer Provides the new trace ID
+     */
+    void startTrace(ActionTracer tracer) {
+        if (traceId == 0) {
+            traceId = tracer.newTraceId();
+            timestamp = System.nanoTime();
+        }
+    }
+
     public String getPropertyName() {
         return propertyName;
     }
@@ -69,4 +109,23 @@ public class ActionCommand {
     public Object getValue() {
         return value;
     }
+
+    /**
+     * Returns the ID of a traced action. A model can use this as propagation
+     * ID of the PropertyChangeEvent that responds to this action.
+     *
+     * @return Trace ID or 0 if the action is not traced.
+     */
+    public long getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Time when a traced action was created or received by this process.
+     *
+     * @return System.nanoTime() value, 0 if not traced.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
 }
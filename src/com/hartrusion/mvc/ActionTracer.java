@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.mvc;
+
+import com.hartrusion.util.LatencyHistogram;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the time it takes for actions to pass the stages between a view
+ * and the model and back. Tracing is optional, it is enabled by setting a
+ * tracer on a Controller or a NetViewAdapter. Traced actions get an ID and a
+ * timestamp, the ID travels with the action over the network.
+ * <p>
+ * A property change is the response to an action if it carries the trace ID
+ * of the action as propagation ID of the PropertyChangeEvent. The Controller
+ * sets this automatically for all events that are fired by the model while
+ * it handles a traced action. If the model fires the response later, it can
+ * set the propagation ID itself using the trace ID of the ActionCommand.
+ * <p>
+ * Each stage has a histogram with the times in nanoseconds. Times are only
+ * compared within the same process, the network path is measured as round
+ * trip on the client.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class ActionTracer {
+
+    public enum Stage {
+        /**
+         * From the action reaching the controller until fireActions takes it
+         * out of the queue.
+         */
+        QUEUED,
+        /**
+         * Duration of handleAction on the model.
+         */
+        HANDLED,
+        /**
+         * From the action reaching the controller until the model fires the
+         * response.
+         */
+        RESPONDED,
+        /**
+         * From userAction on a NetViewAdapter until the action was written to
+         * the socket.
+         */
+        SENT,
+        /**
+         * From userAction on a NetViewAdapter until the response was read
+         * from the socket.
+         */
+        RECEIVED,
+        /**
+         * From userAction on a NetViewAdapter until the response was
+         * delivered to the update receivers.
+         */
+        DELIVERED
+    }
+
+    private final Map<Stage, LatencyHistogram> histograms
+            = new EnumMap<>(Stage.class);
+
+    /**
+     * Starts with a random number, so different clients are unlikely to use
+     * the same IDs.
+     */
+    private final AtomicLong nextId
+            = new AtomicLong(ThreadLocalRandom.current().nextLong() >>> 16);
+
+    public ActionTracer() {
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Creates a new trace ID.
+     *
+     * @return Trace ID, never 0.
+     */
+    public long newTraceId() {
+        long id;
+        do {
+            id = nextId.incrementAndGet();
+        } while (id == 0);
+        return id;
+    }
+
+    /**
+     * Records the time since the given timestamp for a stage.
+     *
+     * @param stage Stage that was passed
+     * @param startTime System.nanoTime() at the beginning
+     */
+    public void record(Stage stage, long startTime) {
+        histograms.get(stage).record(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Returns the histogram of a stage with times in nanoseconds.
+     *
+     * @param stage Stage of the action path
+     * @return Histogram of that stage
+     */
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms.get(stage);
+    }
+
+    /**
+     * Removes all recorded times.
+     */
+    public void reset() {
+        for (LatencyHistogram h : histograms.values()) {
+            h.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Stage, LatencyHistogram> pair : histograms.entrySet()) {
+            if (pair.getValue().getCount() == 0) {
+                continue;
+            }
+            sb.append(pair.getKey()).append(": ").append(pair.getValue())
+                    .append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+}
@@ -54,8 +54,11 @@ public class Controller implements ViewerController, ModelListener {
      */
     private final List<UpdateReceiver> updaters = new CopyOnWriteArrayList<>();
 
-    private final Map<String, Object> lastPropertyChanges
-            = new ConcurrentHashMap<>();
+    /**
+     * Last value of each property that was sent as PropertyChangeEvent, with
+     * a version stamp for each change.
+     */
+    private final PropertyStore lastPropertyChanges = new PropertyStore();
 
     /**
      * Actions from views are getting stored in this queue. The model has to
@@ -64,9 +67,46 @@ public class Controller implements ViewerController, ModelListener {
     private final ConcurrentLinkedQueue<ActionCommand> pendingActions
             = new ConcurrentLinkedQueue<>();
 
+    private volatile ActionTracer tracer;
+
+    private static final int MAX_AWAITING_RESPONSE = 4096;
+
+    /**
+     * The traced action that is currently handled by the model and the thread
+     * calling fireActions.
+     */
+    private volatile ActionCommand handledAction;
+    private volatile Thread handlingThread;
+
+    /**
+     * Start times of traced actions that are handled but did not get a
+     * response yet, by their trace ID.
+     */
+    private final ConcurrentHashMap<Long, Long> awaitingResponse
+            = new ConcurrentHashMap<>();
+
+    /**
+     * Enables tracing of actions. All actions passing this controller will be
+     * traced, events fired by the model while handling a traced action are
+     * marked as response to it.
+     *
+     * @param tracer Tracer to use or null to disable tracing
+     */
+    public void setTracer(ActionTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    public ActionTracer getTracer() {
+        return tracer;
+    }
+
     // called from view
     @Override
     public void userAction(ActionCommand evt) {
+        ActionTracer t = tracer;
+        if (t != null) {
+            evt.startTrace(t);
+        }
         pendingActions.offer(evt);
         model.updateNotification(evt.getPropertyName());
     }
@@ -76,17 +116,67 @@ public class Controller implements ViewerController, ModelListener {
         ActionCommand evt;
         while (!pendingActions.isEmpty()) {
             evt = pendingActions.poll();
-            model.handleAction(evt);
+            ActionTracer t = tracer;
+            if (t == null || evt.traceId == 0) {
+                model.handleAction(evt);
+                continue;
+            }
+            t.record(ActionTracer.Stage.QUEUED, evt.timestamp);
+            if (awaitingResponse.size() >= MAX_AWAITING_RESPONSE) {
+                awaitingResponse.clear(); // responses that never came
+            }
+            awaitingResponse.put(evt.traceId, evt.timestamp);
+            long start = System.nanoTime();
+            handlingThread = Thread.currentThread();
+            handledAction = evt;
+            try {
+                model.handleAction(evt);
+            } finally {
+                handledAction = null;
+                handlingThread = null;
+            }
+            t.record(ActionTracer.Stage.HANDLED, start);
         }
     }
 
-    // To be called from the model
+    // To be called from the model. Only storing the value is synchronized,
+    // the updaters are called without holding a lock and get the version
+    // that belongs to the value. The change is published after all updaters
+    // got it, see PropertyStore.
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
-        for (UpdateReceiver v : updaters) {
-            v.updateComponent(evt);
+        if (tracer != null) {
+            traceResponse(evt);
+        }
+        long version = lastPropertyChanges.putUnpublished(
+                evt.getPropertyName(), evt.getNewValue());
+        try {
+            for (UpdateReceiver v : updaters) {
+                v.updateComponent(evt, version);
+            }
+        } finally {
+            lastPropertyChanges.publish(version);
+        }
+    }
+
+    /**
+     * Marks events fired during handling a traced action as its response and
+     * records the response time of the action.
+     */
+    private void traceResponse(PropertyChangeEvent evt) {
+        if (evt.getPropagationId() == null
+                && handlingThread == Thread.currentThread()) {
+            ActionCommand handled = handledAction;
+            if (handled != null) {
+                evt.setPropagationId(handled.traceId);
+            }
+        }
+        if (evt.getPropagationId() instanceof Long) {
+            Long start = awaitingResponse.remove(evt.getPropagationId());
+            if (start != null) {
+                tracer.record(ActionTracer.Stage.RESPONDED, start);
+            }
         }
-        lastPropertyChanges.put(evt.getPropertyName(), evt.getNewValue());
     }
 
     // To be called from the model
@@ -125,6 +215,11 @@ public class Controller implements ViewerController, ModelListener {
         }
     }
 
+    @Override
+    public void removeUpdater(UpdateReceiver updater) {
+        updaters.remove(updater);
+    }
+
     @Override
     public void registerModel(ModelManipulation model) {
         this.model = model;
@@ -132,12 +227,21 @@ public class Controller implements ViewerController, ModelListener {
 
     @Override
     public void fireLastPropertyChangesTo(UpdateReceiver view) {
-        for (Map.Entry<String, Object> pair : lastPropertyChanges.entrySet()) {
+        lastPropertyChanges.forEach((propertyName, value) -> {
             PropertyChangeEvent evt = new PropertyChangeEvent(this,
-                    pair.getKey(), null, pair.getValue());
+                    propertyName, null, value);
             view.updateComponent(evt);
-        }
+        });
+    }
 
+    @Override
+    public void copyLastPropertyChanges(Map<String, Object> target) {
+        lastPropertyChanges.copyTo(0, target);
+    }
+
+    @Override
+    public PropertyStore getPropertyStore() {
+        return lastPropertyChanges;
     }
 
 }
@@ -0,0 +1,232 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.mvc;
+
+import com.hartrusion.util.LongList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Stores the last value of each property together with a version stamp. Each
+ * put increments a version counter and the new value gets the new version
+ * number, so it is possible to get all properties that were changed since a
+ * given version.
+ * <p>
+ * Each store gets a random epoch number on creation. A version number is only
+ * meaningful together with the epoch of the store it came from, if a program
+ * is restarted, the versions start from zero again with a new epoch.
+ * <p>
+ * A controller that passes each change to its receivers after storing it,
+ * without holding a lock, can store the change as unpublished and publish it
+ * after all receivers got it. Changes of several threads can then reach the
+ * receivers in a different order than their versions. The published version
+ * tells up to which version all changes have reached the receivers.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class PropertyStore {
+
+    private static final class Slot {
+
+        final Object value;
+        final long version;
+
+        Slot(Object value, long version) {
+            this.value = value;
+            this.version = version;
+        }
+    }
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    private final long epoch;
+
+    /**
+     * Versions stored with putUnpublished and not published yet, in
+     * ascending order. Only used while holding the lock on this.
+     */
+    private final LongList unpublished = new LongList();
+
+    /**
+     * Last assigned version, only modified while holding the lock on this.
+     */
+    private volatile long version;
+
+    public PropertyStore() {
+        long e;
+        do {
+            e = ThreadLocalRandom.current().nextLong();
+        } while (e == 0); // 0 is used as "no epoch known"
+        epoch = e;
+    }
+
+    /**
+     * Stores a new value for the property and assigns the next version to it.
+     *
+     * @param propertyName Programmatic name of the property
+     * @param value New value, can be null
+     * @return Version number assigned to this change
+     */
+    public synchronized long put(String propertyName, Object value) {
+        long v = version + 1;
+        slots.put(propertyName, new Slot(value, v));
+        version = v;
+        return v;
+    }
+
+    /**
+     * Stores a new value like put, but the change is not published until
+     * publish is called with the returned version.
+     *
+     * @param propertyName Programmatic name of the property
+     * @param value New value, can be null
+     * @return Version number assigned to this change
+     */
+    public synchronized long putUnpublished(String propertyName,
+            Object value) {
+        long v = put(propertyName, value);
+        unpublished.add(v);
+        return v;
+    }
+
+    /**
+     * Marks a change that was stored with putUnpublished as published.
+     *
+     * @param version Version returned by putUnpublished
+     */
+    public synchronized void publish(long version) {
+        int idx = unpublished.indexOf(version);
+        if (idx >= 0) {
+            unpublished.removeAt(idx);
+        }
+    }
+
+    /**
+     * Returns the version up to which all changes are published. Changes
+     * stored with put are published immediately.
+     *
+     * @return Highest version with no unpublished change at or below it
+     */
+    public synchronized long getPublishedVersion() {
+        return unpublished.isEmpty() ? version : unpublished.get(0) - 1;
+    }
+
+    /**
+     * Returns the last stored value of a property.
+     *
+     * @param propertyName Programmatic name of the property
+     * @return Last value or null if the property was never stored.
+     */
+    public Object get(String propertyName) {
+        Slot s = slots.get(propertyName);
+        return s == null ? null : s.value;
+    }
+
+    /**
+     * Returns the version that was assigned to the last stored value of a
+     * property.
+     *
+     * @param propertyName Programmatic name of the property
+     * @return Version or 0 if the property was never stored.
+     */
+    public long getVersion(String propertyName) {
+        Slot s = slots.get(propertyName);
+        return s == null ? 0 : s.version;
+    }
+
+    /**
+     * Returns the last version that was assigned to any property.
+     *
+     * @return Current version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Random number that identifies this store instance.
+     *
+     * @return Epoch, never 0.
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Copies all properties that were changed after the given version into
+     * the target map.
+     * <p>
+     * The returned version is read before copying. All changes up to and
+     * including the returned version are contained in the target map, it can
+     * contain newer changes as well.
+     *
+     * @param sinceVersion Only copy properties with a higher version, use 0 to
+     * copy all properties.
+     * @param target Map that receives property names and values.
+     * @return Version up to which all changes are contained.
+     */
+    public long copyTo(long sinceVersion, Map<String, Object> target) {
+        return copyTo(sinceVersion, null, target);
+    }
+
+    /**
+     * Copies all properties that were changed after the given version and
+     * are accepted by the filter into the target map.
+     *
+     * @param sinceVersion Only copy properties with a higher version, use 0 to
+     * copy all properties.
+     * @param filter Tests the property names, null to accept all.
+     * @param target Map that receives property names and values.
+     * @return Version up to which all accepted changes are contained.
+     */
+    public long copyTo(long sinceVersion, Predicate<String> filter,
+            Map<String, Object> target) {
+        long current = version;
+        for (Map.Entry<String, Slot> pair : slots.entrySet()) {
+            if (pair.getValue().version > sinceVersion
+                    && (filter == null || filter.test(pair.getKey()))) {
+                target.put(pair.getKey(), pair.getValue().value);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Calls the action for each stored property with its last value.
+     *
+     * @param action Receives property name and value
+     */
+    public void forEach(BiConsumer<String, Object> action) {
+        for (Map.Entry<String, Slot> pair : slots.entrySet()) {
+            action.accept(pair.getKey(), pair.getValue().value);
+        }
+    }
+}
@@ -47,6 +47,23 @@ public interface UpdateReceiver {
      */
     public void updateComponent(PropertyChangeEvent evt);
 
+    /**
+     * Receives a PropertyChangeEvent together with the version that the
+     * controller assigned to the change in its PropertyStore. A controller
+     * with a store calls this instead of updateComponent(evt), so the
+     * receiver gets the version that belongs to this value even if the
+     * property was changed again meanwhile.
+     * <p>
+     * The default implementation ignores the version.
+     *
+     * @param evt
+     * @param version Version of the change, 0 if unknown.
+     */
+    public default void updateComponent(PropertyChangeEvent evt,
+            long version) {
+        updateComponent(evt);
+    }
+
     /**
      * This is a Views method to receive an update from the controller,
      * specified by a String with a given Object value. It will be implemented
@@ -23,6 +23,9 @@
  */
 package com.hartrusion.mvc;
 
+import java.beans.PropertyChangeEvent;
+import java.util.Map;
+
 /**
  * To be implemented by a controller. This interface describes the part that is
  * called from the view.
@@ -32,6 +35,19 @@ package com.hartrusion.mvc;
 public interface ViewerController extends ActionReceiver {
 
     public void registerUpdater(UpdateReceiver updater);
+
+    /**
+     * Removes an UpdateReceiver that was registered before, it will not get
+     * any further updates.
+     *
+     * @param updater UpdateReceiver to remove
+     * @throws UnsupportedOperationException if the controller does not
+     * support removing receivers.
+     */
+    public default void removeUpdater(UpdateReceiver updater) {
+        throw new UnsupportedOperationException(
+                "Controller does not support removing updaters.");
+    }
     
     /**
      * The controller has a list of all PropertyChangeEvents with the
@@ -46,4 +62,52 @@ public interface ViewerController extends ActionReceiver {
      * to.
      */
     public void fireLastPropertyChangesTo(UpdateReceiver view);
+
+    /**
+     * Copies all stored propertyName and value pairs into the given map. This
+     * is the same data as used by fireLastPropertyChangesTo but without
+     * creating an event for each pair, it can be used to transfer the whole
+     * state at once.
+     * <p>
+     * The default implementation collects the events of
+     * fireLastPropertyChangesTo.
+     *
+     * @param target Map that will receive all stored pairs.
+     */
+    public default void copyLastPropertyChanges(Map<String, Object> target) {
+        fireLastPropertyChangesTo(new UpdateReceiver() {
+            @Override
+            public void updateComponent(PropertyChangeEvent evt) {
+                target.put(evt.getPropertyName(), evt.getNewValue());
+            }
+
+            @Override
+            public void updateComponent(String propertyName,
+                    Object newValue) {
+            }
+
+            @Override
+            public void updateComponent(String propertyName,
+                    double newValue) {
+            }
+
+            @Override
+            public void updateComponent(String propertyName,
+                    boolean newValue) {
+            }
+        });
+    }
+
+    /**
+     * Returns the store that holds the last values together with a version
+     * for each change. This allows transferring only the properties that
+     * were changed since a known version. The store is meant to be read, it
+     * is updated by the controller itself.
+     *
+     * @return Store of the last property values, null if the controller does
+     * not keep versions, which is the default.
+     */
+    public default PropertyStore getPropertyStore() {
+        return null;
+    }
 }
@@ -0,0 +1,307 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.mvc.net;
+
+import com.hartrusion.mvc.ActionCommand;
+import com.hartrusion.mvc.ActionTracer;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends actions to the server from its own writer thread. Calling offer will
+ * never wait for the network, the action is encoded and put into a queue, so
+ * an action that can not be written is rejected to the caller. The writer
+ * thread takes all queued actions at once, writes them and flushes the stream
+ * once for the whole batch.
+ * <p>
+ * Actions with a property name contained in the coalesced set are treated as
+ * continuous controls, like a slider. Only the latest value of such an action
+ * is kept in the queue, an older value that was not sent yet gets replaced.
+ * <p>
+ * Besides actions, other messages to the server can be queued as control
+ * messages. Those are written before the actions of the same batch.
+ * <p>
+ * The number of queued actions is limited, if the server does not keep up,
+ * further actions are rejected instead of piling up.
+ *
+ * @author Viktor Alexander Hartung
+ */
+class ActionSender {
+
+    private static final Logger LOGGER
+            = Logger.getLogger(ActionSender.class.getName());
+
+    /**
+     * Maximum number of actions waiting to be written.
+     */
+    static final int MAX_PENDING = 4096;
+
+    private final DataOutputStream outputStream;
+    private final ClassBlueprints blueprints;
+    private final Set<String> coalescedActions;
+    private final boolean tracing;
+
+    private ArrayList<ActionCommand> pending = new ArrayList<>();
+    private ArrayList<ActionCommand> writing = new ArrayList<>();
+
+    /**
+     * Encoded messages of the actions, at the same index as the action.
+     */
+    private ArrayList<byte[]> pendingFrames = new ArrayList<>();
+    private ArrayList<byte[]> writingFrames = new ArrayList<>();
+
+    private final ByteArrayOutputStream frameBuffer
+            = new ByteArrayOutputStream();
+    private final DataOutputStream frameStream
+            = new DataOutputStream(frameBuffer);
+
+    private ArrayList<ControlMessage> pendingControl = new ArrayList<>();
+    private ArrayList<ControlMessage> writingControl = new ArrayList<>();
+
+    /**
+     * Index of the queued action for each coalesced property name.
+     */
+    private final Map<String, Integer> coalesceIndex = new HashMap<>();
+
+    private int pendingCount;
+    private long sentActions;
+    private long coalescedCount;
+
+    private boolean closed;
+
+    private volatile ActionTracer tracer;
+
+    private final Thread writerThread;
+
+    /**
+     * Creates the sender and starts its writer thread.
+     *
+     * @param outputStream Stream of the socket to the server
+     * @param blueprints Registry to write the action values
+     * @param coalescedActions Property names of actions where only the latest
+     * value will be sent. The set is read on each action, so it can be
+     * modified while the sender is running if it is thread safe.
+     * @param tracing true if the server accepts traced actions, otherwise
+     * the trace IDs are not sent.
+     */
+    ActionSender(DataOutputStream outputStream, ClassBlueprints blueprints,
+            Set<String> coalescedActions, boolean tracing) {
+        this.outputStream = outputStream;
+        this.blueprints = blueprints;
+        this.coalescedActions = coalescedActions;
+        this.tracing = tracing;
+        writerThread = new Thread(() -> {
+            writeLoop();
+        }, "ServerNetController-WriteThread");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queues the action for being sent. Returns immediately.
+     *
+     * @param evt Action to send
+     * @return false if the action was not queued because the sender was
+     * closed, the connection failed or too many actions are pending.
+     * @throws IllegalArgumentException If the type of the value is not
+     * registered.
+     */
+    synchronized boolean offer(ActionCommand evt) {
+        if (closed) {
+            return false;
+        }
+        byte[] frame = encode(evt);
+        Integer idx = null;
+        if (coalescedActions.contains(evt.getPropertyName())) {
+            idx = coalesceIndex.get(evt.getPropertyName());
+        }
+        if (idx == null && pendingCount >= MAX_PENDING) {
+            return false;
+        }
+        if (coalescedActions.contains(evt.getPropertyName())) {
+            if (idx != null) {
+                // Remove the older value but add the new one to the end of
+                // the queue, so the order of latest values is kept.
+                pending.set(idx, null);
+                pendingFrames.set(idx, null);
+                pendingCount--;
+                coalescedCount++;
+            }
+            coalesceIndex.put(evt.getPropertyName(), pending.size());
+        }
+        pending.add(evt);
+        pendingFrames.add(frame);
+        pendingCount++;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Writes the message of an action into a byte array, has to be called
+     * with the lock held.
+     */
+    private byte[] encode(ActionCommand evt) {
+        frameBuffer.reset();
+        try {
+            if (tracing && evt.getTraceId() != 0) {
+                frameStream.writeByte(ViewConnection.MSG_ACTION_TRACED);
+                frameStream.writeUTF(evt.getPropertyName());
+                blueprints.writeObject(frameStream, evt.getValue());
+                frameStream.writeLong(evt.getTraceId());
+            } else {
+                frameStream.writeByte(ViewConnection.MSG_ACTION);
+                frameStream.writeUTF(evt.getPropertyName());
+                blueprints.writeObject(frameStream, evt.getValue());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode action.", e);
+        }
+        return frameBuffer.toByteArray();
+    }
+
+    /**
+     * Sets the tracer which records when traced actions were sent.
+     *
+     * @param tracer Tracer or null
+     */
+    void setTracer(ActionTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * Queues a control message. Returns immediately, if the sender is closed,
+     * the message is discarded.
+     *
+     * @param message Message to send
+     * @return false if the sender is closed.
+     */
+    synchronized boolean offerControl(ControlMessage message) {
+        if (closed) {
+            return false;
+        }
+        pendingControl.add(message);
+        notifyAll();
+        return true;
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (pending.isEmpty() && pendingControl.isEmpty()
+                            && !closed) {
+                        wait();
+                    }
+                    if (pending.isEmpty() && pendingControl.isEmpty()) {
+                        return; // closed and everything was sent
+                    }
+                    ArrayList<ActionCommand> swap = writing;
+                    writing = pending;
+                    pending = swap;
+                    ArrayList<byte[]> swapFrames = writingFrames;
+                    writingFrames = pendingFrames;
+                    pendingFrames = swapFrames;
+                    ArrayList<ControlMessage> swapControl = writingControl;
+                    writingControl = pendingControl;
+                    pendingControl = swapControl;
+                    coalesceIndex.clear();
+                    pendingCount = 0;
+                }
+                for (ControlMessage message : writingControl) {
+                    message.write(outputStream);
+                }
+                writingControl.clear();
+                int count = 0;
+                for (byte[] frame : writingFrames) {
+                    if (frame == null) {
+                        continue; // replaced by coalescing
+                    }
+                    outputStream.write(frame);
+                    count++;
+                }
+                writingFrames.clear();
+                outputStream.flush();
+                ActionTracer t = tracer;
+                if (t != null) {
+                    for (ActionCommand evt : writing) {
+                        if (evt != null && evt.getTraceId() != 0) {
+                            t.record(ActionTracer.Stage.SENT,
+                                    evt.getTimestamp());
+                        }
+                    }
+                }
+                writing.clear();
+                synchronized (this) {
+                    sentActions += count;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to send actions to server.", e);
+            close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops accepting actions. Actions that are already queued will still be
+     * written by the writer thread.
+     */
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Waits for the writer thread to write the remaining actions after the
+     * sender was closed.
+     *
+     * @param millis Maximum time to wait in milliseconds
+     * @return true if the writer thread has finished.
+     * @throws InterruptedException
+     */
+    boolean awaitTermination(long millis) throws InterruptedException {
+        writerThread.join(millis);
+        return !writerThread.isAlive();
+    }
+
+    synchronized int getPendingActions() {
+        return pendingCount;
+    }
+
+    synchronized long getSentActions() {
+        return sentActions;
+    }
+
+    synchronized long getCoalescedActions() {
+        return coalescedCount;
+    }
+}
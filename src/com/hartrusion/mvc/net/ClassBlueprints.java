@@ -34,6 +34,7 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class ClassBlueprints {
@@ -71,6 +72,49 @@ public class ClassBlueprints {
         );
     }
 
+    /**
+     * Returns the IDs of all registered types by their class name, in the
+     * order of registration. This is exchanged when connecting, so both sides
+     * can agree on the IDs.
+     *
+     * @return Map of class names to type IDs
+     */
+    public Map<String, Byte> getTypeTable() {
+        Map<String, Byte> table = new LinkedHashMap<>();
+        for (byte id = 1; id < nextId; id++) {
+            for (Map.Entry<Class<?>, Byte> pair : classToId.entrySet()) {
+                if (pair.getValue() == id) {
+                    table.put(pair.getKey().getName(), id);
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Creates blueprints that use the type IDs of the other side. Each type
+     * that is registered here and contained in the remote table gets the
+     * remote ID, types unknown to the other side can not be transferred with
+     * the returned blueprints. No further types can be registered to it.
+     *
+     * @param remoteTable Type table of the other side, see getTypeTable
+     * @return New blueprints with the same readers and writers
+     */
+    public ClassBlueprints remap(Map<String, Byte> remoteTable) {
+        ClassBlueprints remapped = new ClassBlueprints();
+        for (Map.Entry<Class<?>, Byte> pair : classToId.entrySet()) {
+            Byte remoteId = remoteTable.get(pair.getKey().getName());
+            if (remoteId == null || remoteId == 0) {
+                continue;
+            }
+            remapped.classToId.put(pair.getKey(), remoteId);
+            remapped.idToReader.put(remoteId, idToReader.get(pair.getValue()));
+            remapped.idToWriter.put(remoteId, idToWriter.get(pair.getValue()));
+        }
+        remapped.nextId = Byte.MAX_VALUE;
+        return remapped;
+    }
+
     /**
      * Writs an object into stream
      */
@@ -0,0 +1,132 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.mvc.net;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The hello message which is exchanged when a client connects. The client
+ * sends its hello as first message, the server answers with its own before
+ * anything else. A hello contains the protocol version, capability bits and
+ * the type table of the class blueprints.
+ * <p>
+ * The capabilities of a connection are the ones both sides support. Optional
+ * encodings and all message types that the first version of the protocol did
+ * not have are only used if their capability is set, so clients and servers
+ * of different versions can be mixed. A client that does not send a hello
+ * gets no optional encodings at all. The client uses the type IDs of the
+ * server, so the types do not have to be registered in the same order on
+ * both sides.
+ *
+ * @author Viktor Alexander Hartung
+ */
+final class Handshake {
+
+    static final short PROTOCOL_VERSION = 1;
+
+    /**
+     * Snapshots can be compressed with deflate.
+     */
+    static final int CAP_COMPRESSION = 1;
+    /**
+     * Updates of double properties can be sent with reduced precision.
+     */
+    static final int CAP_PRECISION = 2;
+    /**
+     * Snapshots can be split into parts.
+     */
+    static final int CAP_SNAPSHOT_PARTS = 4;
+    /**
+     * Actions and their responses can carry a trace ID.
+     */
+    static final int CAP_TRACING = 8;
+    /**
+     * Boolean updates can be sent as bit packed groups.
+     */
+    static final int CAP_BOOLEAN_GROUP = 16;
+    /**
+     * Initial values are sent as snapshot on request of the client and
+     * updates can carry the version instead of the old value.
+     */
+    static final int CAP_VERSIONED = 32;
+    /**
+     * Pings are answered, so the connection can be closed if nothing was
+     * received within an idle timeout.
+     */
+    static final int CAP_HEARTBEAT = 64;
+    /**
+     * Subscriptions of the client are applied by the server.
+     */
+    static final int CAP_SUBSCRIPTIONS = 128;
+
+    /**
+     * All capabilities supported by this implementation.
+     */
+    static final int CAPABILITIES = CAP_COMPRESSION | CAP_PRECISION
+            | CAP_SNAPSHOT_PARTS | CAP_TRACING | CAP_BOOLEAN_GROUP
+            | CAP_VERSIONED | CAP_HEARTBEAT | CAP_SUBSCRIPTIONS;
+
+    final short version;
+    final int capabilities;
+    final Map<String, Byte> typeTable;
+
+    Handshake(short version, int capabilities, Map<String, Byte> typeTable) {
+        this.version = version;
+        this.capabilities = capabilities;
+        this.typeTable = typeTable;
+    }
+
+    /**
+     * Writes the hello message including the message type.
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeByte(ViewConnection.MSG_HELLO);
+        out.writeShort(version);
+        out.writeInt(capabilities);
+        out.writeShort(typeTable.size());
+        for (Map.Entry<String, Byte> pair : typeTable.entrySet()) {
+            out.writeUTF(pair.getKey());
+            out.writeByte(pair.getValue());
+        }
+    }
+
+    /**
+     * Reads a hello message after the message type was read.
+     */
+    static Handshake read(DataInputStream in) throws IOException {
+        short version = in.readShort();
+        int capabilities = in.readInt();
+        int count = in.readUnsignedShort();
+        Map<String, Byte> typeTable = new LinkedHashMap<>();
+        for (int idx = 0; idx < count; idx++) {
+            String className = in.readUTF();
+            typeTable.put(className, in.readByte());
+        }
+        return new Handshake(version, capabilities, typeTable);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.mvc.net;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Connects to a server as a client and serves the mirrored properties to its
+ * own clients. Actions of its clients are forwarded to the upstream server.
+ * This allows more observers without putting more load on the process that
+ * runs the model, each relay only needs one connection to its upstream
+ * server. Relays can connect to other relays to form a tree.
+ * <p>
+ * The NetViewAdapter is used as controller for the own SocketServer. As it
+ * has its own property store, the clients of a relay can resync with a delta
+ * against the relay, independent of the upstream connection.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class NetRelay {
+
+    private static final Logger LOGGER
+            = Logger.getLogger(NetRelay.class.getName());
+
+    private final NetViewAdapter upstream;
+    private final SocketServer server;
+
+    private Thread serverThread;
+
+    public NetRelay(ClassBlueprints blueprints) {
+        upstream = new NetViewAdapter(blueprints);
+        server = new SocketServer(upstream, blueprints);
+    }
+
+    /**
+     * Connects to the upstream server and starts accepting clients on the
+     * given port in a separate thread.
+     *
+     * @param host Upstream server address
+     * @param port Upstream server port
+     * @param localPort Port for the clients of this relay, 0 to use any free
+     * port.
+     * @throws IOException if the upstream server can not be reached.
+     */
+    public void start(String host, int port, int localPort) throws IOException {
+        upstream.connect(host, port);
+        serverThread = new Thread(() -> {
+            try {
+                server.startServer(localPort);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Relay server stopped.", e);
+            }
+        }, "NetRelay-ServerThread-" + localPort);
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    /**
+     * The client connection to the upstream server.
+     *
+     * @return NetViewAdapter used by this relay
+     */
+    public NetViewAdapter getUpstream() {
+        return upstream;
+    }
+
+    /**
+     * The server accepting clients of this relay.
+     *
+     * @return SocketServer used by this relay
+     */
+    public SocketServer getServer() {
+        return server;
+    }
+
+    /**
+     * Closes the relay server with all its client connections and the
+     * upstream connection.
+     */
+    public void close() {
+        server.close();
+        upstream.close();
+    }
+}
@@ -24,17 +24,34 @@
 package com.hartrusion.mvc.net;
 
 import com.hartrusion.mvc.ActionCommand;
+import com.hartrusion.mvc.ActionTracer;
+import com.hartrusion.mvc.PropertyStore;
 import com.hartrusion.mvc.UpdateReceiver;
 import com.hartrusion.mvc.ViewerController;
+import com.hartrusion.util.BooleanList;
+import com.hartrusion.util.BooleanStateTable;
+import com.hartrusion.util.IntList;
+import com.hartrusion.util.LatencyHistogram;
+import com.hartrusion.util.RateLimitFilter;
 import java.beans.PropertyChangeEvent;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -42,6 +59,31 @@ import java.util.logging.Logger;
  * Client-side MVC controller that connects to a ServerNetView.
  * Receives updates from the simulator server and forwards them to registered
  * UpdateReceivers. Sends user actions from the GUI to the server.
+ * <p>
+ * Receiving and delivering updates is done by two threads. The read thread
+ * only decodes the messages from the socket and puts them into a conflating
+ * buffer, a dispatch thread takes all pending updates as a batch and calls
+ * the registered UpdateReceivers. A slow receiver will therefore not stop the
+ * socket from being read, instead, intermediate values of the same property
+ * get skipped. Optionally, each batch can be delivered by one task on the AWT
+ * event queue, the receivers can then be Swing views directly.
+ * <p>
+ * By default, the server sends updates of all properties. As soon as a
+ * property or a prefix is subscribed, the server only sends the subscribed
+ * properties. Subscriptions can be changed while connected, for example when
+ * a frame is opened or closed. Servers that do not support subscriptions
+ * keep sending all properties.
+ * <p>
+ * If a tracer is set, all actions are sent with a trace ID. The server
+ * returns the ID with the property change that responds to the action, which
+ * gives the time from the action to the response arriving at the views.
+ * <p>
+ * After connecting, client and server exchange a hello message with their
+ * capabilities and type tables. The client uses the type IDs of the server
+ * and only the optional encodings both sides support. To connect to a server
+ * without that handshake, the legacy protocol has to be enabled. The client
+ * then only sends actions, as the older server knows no other messages, and
+ * gets the initial values from the server without requesting them.
  *
  * @author Viktor Alexander Hartung
  */
@@ -50,19 +92,231 @@ public class NetViewAdapter implements ViewerController {
     private static final Logger LOGGER
             = Logger.getLogger(NetViewAdapter.class.getName());
 
+    private static final String UNKNOWN_TYPE
+            = "Unknown message type received: {0}";
+
+    static {
+        // A stream that lost its framing produces this warning per byte
+        // read, it is collapsed into summaries.
+        RateLimitFilter.install(LOGGER).setLimit(UNKNOWN_TYPE, 20, 1.0);
+    }
+
     private final List<UpdateReceiver> updaters = new CopyOnWriteArrayList<>();
-    private final Map<String, Object> lastPropertyChanges
-            = new ConcurrentHashMap<>();
+    /**
+     * Mirror of the last values on the server. This is a store of its own
+     * with its own versions, so this adapter can act as a controller for
+     * other connections too.
+     */
+    private final PropertyStore lastPropertyChanges = new PropertyStore();
 
     private final ClassBlueprints blueprints;
 
-    private Socket socket;
+    /**
+     * Blueprints with the type IDs of the server, created for each
+     * connection.
+     */
+    private volatile ClassBlueprints wireBlueprints;
+
+    /**
+     * Capabilities of the current connection, see Handshake.
+     */
+    private volatile int capabilities;
+    private volatile boolean legacyProtocol;
+
+    /**
+     * Updates are put in here by the read thread and taken out by the
+     * dispatch thread.
+     */
+    private final UpdateBuffer updateBuffer;
+
+    private String host;
+    private int port;
+
+    private volatile Socket socket;
     private DataInputStream inputStream;
     private DataOutputStream outputStream;
+    private volatile ActionSender actionSender;
+    private volatile boolean closed;
+
+    private volatile boolean reconnect = true;
+    private volatile long minReconnectDelay = 500;
+    private volatile long maxReconnectDelay = 30000;
+
+    /**
+     * Epoch of the property store on the server and the version up to which
+     * all changes were received. Sent to the server on reconnect.
+     */
+    private volatile long serverEpoch;
+    private volatile long serverVersion;
     private Thread readThread;
+    private Thread dispatchThread;
+
+    /**
+     * Property names of actions that are coalesced while waiting to be sent.
+     */
+    private final Set<String> coalescedActions
+            = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Subscribed property names and prefixes, sent again after reconnecting.
+     */
+    private final Set<String> subscribedNames = ConcurrentHashMap.newKeySet();
+    private final Set<String> subscribedPrefixes
+            = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean dispatchOnEventQueue;
+
+    private volatile long lastDispatchLag;
+    private volatile long maxDispatchLag;
+    private final LatencyHistogram dispatchLags = new LatencyHistogram();
+
+    private volatile int pingInterval = 1000;
+    private volatile int idleTimeout = 10000;
+    private ScheduledExecutorService pinger;
+    private final LatencyHistogram roundTripTimes = new LatencyHistogram();
+    private volatile long lastRoundTripTime;
+
+    private static final int MAX_PENDING_TRACES = 4096;
+
+    private static final String ACTION_DROPPED
+            = "Action {0} dropped, not connected or too many pending.";
+
+    /**
+     * Time to wait for queued actions to be written when closing.
+     */
+    private static final long CLOSE_TIMEOUT = 1000;
+
+    private volatile ActionTracer tracer;
+
+    /**
+     * Boolean properties received as groups, only used by the read thread
+     * and replaced for each connection. The changes of a group are collected
+     * in the two lists before they are offered.
+     */
+    private BooleanStateTable booleanGroup = new BooleanStateTable();
+    private final IntList groupIndices = new IntList();
+    private final BooleanList groupValues = new BooleanList();
+
+    /**
+     * Wire precision of double properties as announced by the server, only
+     * used by the read thread and reset for each connection.
+     */
+    private final Map<String, WirePrecision.Channel> precisionChannels
+            = new HashMap<>();
+
+    /**
+     * Set while a snapshot is received in parts, with the names of the
+     * properties that were updated in between. Only used by the read thread.
+     */
+    private boolean snapshotInProgress;
+    private final Set<String> updatedDuringSnapshot = new HashSet<>();
+
+    /**
+     * Start times of traced actions by trace ID, waiting for the response to
+     * be received or to be delivered.
+     */
+    private final Map<Long, Long> sentTraces = new ConcurrentHashMap<>();
+    private final Map<Long, Long> receivedTraces = new ConcurrentHashMap<>();
 
     public NetViewAdapter(ClassBlueprints blueprints) {
+        this(blueprints, 65536);
+    }
+
+    /**
+     * Creates a new adapter with a given size of the update buffer.
+     *
+     * @param blueprints Registry of all types that are transferred.
+     * @param bufferCapacity Number of distinct properties that can be waiting
+     * for being delivered until the socket will not be read anymore.
+     */
+    public NetViewAdapter(ClassBlueprints blueprints, int bufferCapacity) {
         this.blueprints = blueprints;
+        updateBuffer = new UpdateBuffer(bufferCapacity);
+    }
+
+    /**
+     * If set to true, each batch of updates will be delivered to the
+     * registered receivers by one task on the AWT event queue, waiting for the
+     * task to finish before the next batch is taken. The receivers are then
+     * called from the event dispatch thread and there is no need for an
+     * AwtUpdater. Has to be set before connecting.
+     *
+     * @param dispatchOnEventQueue true to use the AWT event queue
+     */
+    public void setDispatchOnEventQueue(boolean dispatchOnEventQueue) {
+        this.dispatchOnEventQueue = dispatchOnEventQueue;
+    }
+
+    /**
+     * Enables or disables reconnecting after the connection to the server was
+     * lost. If enabled, which is the default, the adapter tries to connect
+     * again with an increasing delay between the attempts. After reconnecting,
+     * only properties that were changed while being disconnected will be
+     * transferred, if the server is still the same instance.
+     *
+     * @param reconnect true to reconnect automatically
+     * @param minDelay Delay before the first attempt in milliseconds
+     * @param maxDelay Maximum delay between attempts in milliseconds, the
+     * delay is doubled with each failed attempt until this value is reached.
+     */
+    public void setReconnect(boolean reconnect, long minDelay, long maxDelay) {
+        if (minDelay < 1 || maxDelay < minDelay) {
+            throw new IllegalArgumentException("Invalid reconnect delays.");
+        }
+        this.reconnect = reconnect;
+        this.minReconnectDelay = minDelay;
+        this.maxReconnectDelay = maxDelay;
+    }
+
+    /**
+     * Sets the interval for pings sent to the server and the time after which
+     * the connection is considered lost if nothing was received. The server
+     * sends pings too, so the timeout also detects a dead connection if
+     * there are no updates. Both are only used if the server announces the
+     * heartbeat in its hello. Has to be set before connecting.
+     *
+     * @param pingInterval Interval in milliseconds
+     * @param idleTimeout Timeout in milliseconds, has to be longer than the
+     * ping interval of both sides, 0 disables the timeout.
+     */
+    public void setHeartbeat(int pingInterval, int idleTimeout) {
+        if (pingInterval < 1
+                || (idleTimeout != 0 && idleTimeout <= pingInterval)) {
+            throw new IllegalArgumentException("Invalid heartbeat timing.");
+        }
+        this.pingInterval = pingInterval;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Connects without the hello handshake, for servers that do not support
+     * it. The types have to be registered in the same order as on the server
+     * then and no optional encodings will be used. Has to be set before
+     * connecting.
+     *
+     * @param legacyProtocol true to skip the handshake
+     */
+    public void setLegacyProtocol(boolean legacyProtocol) {
+        this.legacyProtocol = legacyProtocol;
+    }
+
+    /**
+     * Enables tracing of actions. All actions sent after this call get a
+     * trace ID, the tracer then records the stages SENT, RECEIVED and
+     * DELIVERED.
+     *
+     * @param tracer Tracer to use or null to disable tracing
+     */
+    public void setTracer(ActionTracer tracer) {
+        this.tracer = tracer;
+        ActionSender sender = actionSender;
+        if (sender != null) {
+            sender.setTracer(tracer);
+        }
+    }
+
+    public ActionTracer getTracer() {
+        return tracer;
     }
 
     /**
@@ -73,9 +327,10 @@ public class NetViewAdapter implements ViewerController {
      * @throws IOException
      */
     public void connect(String host, int port) throws IOException {
-        socket = new Socket(host, port);
-        inputStream = new DataInputStream(socket.getInputStream());
-        outputStream = new DataOutputStream(socket.getOutputStream());
+        this.host = host;
+        this.port = port;
+        closed = false;
+        open();
 
         readThread = new Thread(() -> {
             readLoop();
@@ -83,54 +338,457 @@ public class NetViewAdapter implements ViewerController {
         readThread.setDaemon(true);
         readThread.start();
 
-        LOGGER.log(Level.INFO, "Connected to server at 127.0.0.1:{0}", port);
+        dispatchThread = new Thread(() -> {
+            dispatchLoop();
+        }, "ServerNetController-DispatchThread");
+        dispatchThread.setDaemon(true);
+        dispatchThread.start();
+
+        pinger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ServerNetController-Pinger");
+            t.setDaemon(true);
+            return t;
+        });
+        pinger.scheduleAtFixedRate(this::sendPing, pingInterval,
+                pingInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private void sendPing() {
+        ActionSender sender = actionSender;
+        if (sender != null
+                && has(Handshake.CAP_HEARTBEAT)) {
+            sender.offerControl(out -> {
+                out.writeByte(ViewConnection.MSG_PING);
+                out.writeLong(System.nanoTime());
+            });
+        }
+    }
+
+    /**
+     * Opens the socket and requests the server to send all properties that
+     * were changed since the last known version.
+     */
+    private void open() throws IOException {
+        Socket s = new Socket(host, port);
+        try {
+            s.setSoTimeout(idleTimeout);
+            s.setTcpNoDelay(true); // writes are batched already
+            inputStream = new DataInputStream(
+                    new BufferedInputStream(s.getInputStream()));
+            precisionChannels.clear();
+            booleanGroup = new BooleanStateTable();
+            snapshotInProgress = false;
+            updatedDuringSnapshot.clear();
+            outputStream = new DataOutputStream(
+                    new BufferedOutputStream(s.getOutputStream()));
+            handshake();
+            // Servers without heartbeat send nothing while there are no
+            // updates, the timeout would close an idle connection.
+            s.setSoTimeout(has(Handshake.CAP_HEARTBEAT)
+                    ? idleTimeout : 0);
+            // Subscriptions first, so the resync is already filtered. Changes
+            // of the subscriptions are sent by the new sender after this.
+            synchronized (subscribedNames) {
+                if (has(Handshake.CAP_SUBSCRIPTIONS)) {
+                    for (String name : subscribedNames) {
+                        writeSubscription(outputStream, true,
+                                SubscriptionFilter.EXACT, name);
+                    }
+                    for (String prefix : subscribedPrefixes) {
+                        writeSubscription(outputStream, true,
+                                SubscriptionFilter.PREFIX, prefix);
+                    }
+                }
+                // Servers without versions send all values unrequested.
+                if (has(Handshake.CAP_VERSIONED)) {
+                    outputStream.writeByte(ViewConnection.MSG_RESYNC);
+                    outputStream.writeLong(serverEpoch);
+                    outputStream.writeLong(serverVersion);
+                }
+                outputStream.flush();
+                actionSender = new ActionSender(outputStream, wireBlueprints,
+                        coalescedActions,
+                        has(Handshake.CAP_TRACING));
+                actionSender.setTracer(tracer);
+            }
+        } catch (IOException e) {
+            s.close();
+            throw e;
+        }
+        socket = s;
+        LOGGER.log(Level.INFO, "Connected to server at {0}:{1}",
+                new Object[]{host, Integer.toString(port)});
+    }
+
+    /**
+     * Exchanges the hello messages with the server, called with new streams
+     * before anything else is sent.
+     */
+    private void handshake() throws IOException {
+        if (legacyProtocol) {
+            capabilities = 0;
+            wireBlueprints = blueprints;
+            return;
+        }
+        new Handshake(Handshake.PROTOCOL_VERSION, Handshake.CAPABILITIES,
+                blueprints.getTypeTable()).write(outputStream);
+        outputStream.flush();
+        byte msgType = inputStream.readByte();
+        if (msgType != ViewConnection.MSG_HELLO) {
+            throw new IOException("Server did not answer the hello, it may "
+                    + "require the legacy protocol.");
+        }
+        Handshake hello = Handshake.read(inputStream);
+        capabilities = hello.capabilities & Handshake.CAPABILITIES;
+        wireBlueprints = blueprints.remap(hello.typeTable);
+    }
+
+    private boolean has(int capability) {
+        return (capabilities & capability) != 0;
     }
 
     private void readLoop() {
         try {
-            while (!socket.isClosed()) {
-                byte msgType = inputStream.readByte();
-
-                switch (msgType) {
-                    case ViewConnection.MSG_UPDATE_EVENT: {
-                        String propertyName = inputStream.readUTF();
-                        Object oldValue = blueprints.readObject(inputStream);
-                        Object newValue = blueprints.readObject(inputStream);
-                        PropertyChangeEvent evt = new PropertyChangeEvent(
-                                this, propertyName, oldValue, newValue);
-                        propertyChange(evt);
-                        break;
+            while (!closed) {
+                try {
+                    readMessages();
+                } catch (IOException e) {
+                    actionSender.close();
+                    if (closed) {
+                        return;
                     }
+                    LOGGER.log(Level.WARNING,
+                            "Connection to server interrupted.", e);
+                    if (!reconnect) {
+                        return;
+                    }
+                    reconnect();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            updateBuffer.close();
+        }
+    }
+
+    /**
+     * Tries to open the connection again until it succeeds or the adapter
+     * gets closed, doubling the waiting time after each attempt.
+     */
+    private void reconnect() throws InterruptedException {
+        long delay = minReconnectDelay;
+        while (!closed) {
+            Thread.sleep(delay);
+            try {
+                open();
+                return;
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Reconnect failed.", e);
+                delay = Math.min(delay * 2, maxReconnectDelay);
+            }
+        }
+    }
 
-                    case ViewConnection.MSG_UPDATE_OBJECT: {
-                        String propertyName = inputStream.readUTF();
-                        Object newValue = blueprints.readObject(inputStream);
-                        propertyChange(propertyName, newValue);
-                        break;
+    private void readMessages() throws IOException, InterruptedException {
+        while (!closed) {
+            byte msgType = inputStream.readByte();
+
+            switch (msgType) {
+                case ViewConnection.MSG_UPDATE_EVENT: {
+                    String propertyName = inputStream.readUTF();
+                    Object oldValue = wireBlueprints.readObject(inputStream);
+                    Object newValue = wireBlueprints.readObject(inputStream);
+                    markLive(propertyName);
+                    long localVersion
+                            = lastPropertyChanges.put(propertyName, newValue);
+                    updateBuffer.offerEvent(propertyName, oldValue,
+                            newValue, localVersion, 0);
+                    break;
+                }
+
+                case ViewConnection.MSG_UPDATE_VERSIONED: {
+                    String propertyName = inputStream.readUTF();
+                    long version = inputStream.readLong();
+                    Object newValue = wireBlueprints.readObject(inputStream);
+                    Object oldValue = lastPropertyChanges.get(propertyName);
+                    markLive(propertyName);
+                    long localVersion
+                            = lastPropertyChanges.put(propertyName, newValue);
+                    updateBuffer.offerEvent(propertyName, oldValue,
+                            newValue, localVersion, 0);
+                    // Server sends the changes in the order of the versions,
+                    // so everything up to this version was received now.
+                    serverVersion = version;
+                    break;
+                }
+
+                case ViewConnection.MSG_UPDATE_TRACED: {
+                    String propertyName = inputStream.readUTF();
+                    long version = inputStream.readLong();
+                    long traceId = inputStream.readLong();
+                    Object newValue = wireBlueprints.readObject(inputStream);
+                    Object oldValue = lastPropertyChanges.get(propertyName);
+                    markLive(propertyName);
+                    long localVersion
+                            = lastPropertyChanges.put(propertyName, newValue);
+                    traceReceived(traceId); // before dispatch can see it
+                    updateBuffer.offerEvent(propertyName, oldValue,
+                            newValue, localVersion, traceId);
+                    if (version > 0) {
+                        serverVersion = version;
                     }
+                    break;
+                }
+
+                case ViewConnection.MSG_UPDATE_OBJECT: {
+                    String propertyName = inputStream.readUTF();
+                    Object newValue = wireBlueprints.readObject(inputStream);
+                    markLive(propertyName);
+                    lastPropertyChanges.put(propertyName, newValue);
+                    updateBuffer.offerObject(propertyName, newValue);
+                    break;
+                }
 
-                    case ViewConnection.MSG_UPDATE_DOUBLE: {
-                        String propertyName = inputStream.readUTF();
-                        double newValue = inputStream.readDouble();
-                        propertyChange(propertyName, newValue);
-                        break;
+                case ViewConnection.MSG_UPDATE_DOUBLE: {
+                    String propertyName = inputStream.readUTF();
+                    double newValue = inputStream.readDouble();
+                    markLive(propertyName);
+                    lastPropertyChanges.put(propertyName, newValue);
+                    updateBuffer.offerDouble(propertyName, newValue);
+                    break;
+                }
+
+                case ViewConnection.MSG_PRECISION: {
+                    String propertyName = inputStream.readUTF();
+                    precisionChannels.put(propertyName,
+                            WirePrecision.readAnnouncement(inputStream));
+                    break;
+                }
+
+                case ViewConnection.MSG_UPDATE_FLOAT:
+                case ViewConnection.MSG_UPDATE_FIXED:
+                case ViewConnection.MSG_UPDATE_DELTA: {
+                    String propertyName = inputStream.readUTF();
+                    WirePrecision.Channel channel
+                            = precisionChannels.get(propertyName);
+                    if (channel == null) {
+                        throw new IOException("No precision announced for "
+                                + propertyName);
                     }
+                    double newValue = channel.read(inputStream, msgType);
+                    markLive(propertyName);
+                    lastPropertyChanges.put(propertyName, newValue);
+                    updateBuffer.offerDouble(propertyName, newValue);
+                    break;
+                }
 
-                    case ViewConnection.MSG_UPDATE_BOOLEAN: {
-                        String propertyName = inputStream.readUTF();
-                        boolean newValue = inputStream.readBoolean();
-                        propertyChange(propertyName, newValue);
-                        break;
+                case ViewConnection.MSG_UPDATE_BOOLEAN: {
+                    String propertyName = inputStream.readUTF();
+                    boolean newValue = inputStream.readBoolean();
+                    markLive(propertyName);
+                    lastPropertyChanges.put(propertyName, newValue);
+                    updateBuffer.offerBoolean(propertyName, newValue);
+                    break;
+                }
+
+                case ViewConnection.MSG_BOOLEAN_GROUP: {
+                    readBooleanGroup();
+                    break;
+                }
+
+                case ViewConnection.MSG_PING: {
+                    long timestamp = inputStream.readLong();
+                    actionSender.offerControl(out -> {
+                        out.writeByte(ViewConnection.MSG_PONG);
+                        out.writeLong(timestamp);
+                    });
+                    break;
+                }
+
+                case ViewConnection.MSG_PONG: {
+                    long rtt = System.nanoTime() - inputStream.readLong();
+                    lastRoundTripTime = rtt;
+                    roundTripTimes.record(rtt);
+                    break;
+                }
+
+                case ViewConnection.MSG_SNAPSHOT:
+                case ViewConnection.MSG_SNAPSHOT_PART: {
+                    boolean part = msgType == ViewConnection.MSG_SNAPSHOT_PART;
+                    if (part) {
+                        snapshotInProgress = true;
+                    }
+                    long[] header = SnapshotCodec.read(inputStream,
+                            wireBlueprints, (propertyName, value) -> {
+                                if (updatedDuringSnapshot.contains(
+                                        propertyName)) {
+                                    return; // newer value already received
+                                }
+                                Object oldValue
+                                        = lastPropertyChanges.get(propertyName);
+                                long localVersion = lastPropertyChanges.put(
+                                        propertyName, value);
+                                updateBuffer.offerEvent(propertyName,
+                                        oldValue, value, localVersion, 0);
+                            });
+                    if (!part || (header[2] & SnapshotCodec.FLAG_LAST) != 0) {
+                        if ((header[2] & SnapshotCodec.FLAG_PARTIAL) == 0) {
+                            serverEpoch = header[0];
+                            serverVersion = header[1];
+                        }
+                        snapshotInProgress = false;
+                        updatedDuringSnapshot.clear();
                     }
+                    break;
+                }
 
-                    default:
-                        LOGGER.log(Level.WARNING,
-                                "Unknown message type received: {0}", msgType);
-                        break;
+                default:
+                    LOGGER.log(Level.WARNING, UNKNOWN_TYPE, msgType);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reads a group of boolean updates and offers each changed property.
+     */
+    private void readBooleanGroup() throws IOException, InterruptedException {
+        int newNames = inputStream.readInt();
+        for (int idx = 0; idx < newNames; idx++) {
+            booleanGroup.intern(inputStream.readUTF());
+        }
+        booleanGroup.readChanges(inputStream);
+        groupIndices.clear();
+        groupValues.clear();
+        booleanGroup.forEachChange((index, value) -> {
+            groupIndices.add(index);
+            groupValues.add(value);
+        });
+        booleanGroup.publish();
+        for (int idx = 0; idx < groupIndices.size(); idx++) {
+            String propertyName = booleanGroup.getName(groupIndices.get(idx));
+            boolean newValue = groupValues.get(idx);
+            markLive(propertyName);
+            lastPropertyChanges.put(propertyName, newValue);
+            updateBuffer.offerBoolean(propertyName, newValue);
+        }
+    }
+
+    /**
+     * Records the time until the first response to a traced action that was
+     * sent by this adapter arrived.
+     */
+    private void traceReceived(long traceId) {
+        ActionTracer t = tracer;
+        Long start = sentTraces.remove(traceId);
+        if (t == null || start == null) {
+            return; // other client or not the first response
+        }
+        t.record(ActionTracer.Stage.RECEIVED, start);
+        if (receivedTraces.size() >= MAX_PENDING_TRACES) {
+            receivedTraces.clear();
+        }
+        receivedTraces.put(traceId, start);
+    }
+
+    /**
+     * Remembers properties updated while a snapshot is received in parts, the
+     * following parts may contain an older value of those.
+     */
+    private void markLive(String propertyName) {
+        if (snapshotInProgress) {
+            updatedDuringSnapshot.add(propertyName);
+        }
+    }
+
+    private void dispatchLoop() {
+        List<UpdateBuffer.Entry> batch = new ArrayList<>();
+        Runnable delivery = () -> {
+            dispatch(batch);
+        };
+        try {
+            while (true) {
+                updateBuffer.drainTo(batch);
+                if (batch.isEmpty()) {
+                    if (updateBuffer.isClosed()) {
+                        return; // buffer was closed and is empty now.
+                    }
+                    continue;
+                }
+                long oldest = Long.MAX_VALUE;
+                for (UpdateBuffer.Entry e : batch) {
+                    oldest = Math.min(oldest, e.timestamp);
+                }
+                // A failing receiver only loses this batch, the loop has to
+                // keep taking updates or the read thread will block.
+                try {
+                    if (dispatchOnEventQueue) {
+                        java.awt.EventQueue.invokeAndWait(delivery);
+                    } else {
+                        delivery.run();
+                    }
+                } catch (InvocationTargetException e) {
+                    LOGGER.log(Level.SEVERE,
+                            "Exception while dispatching updates.",
+                            e.getCause());
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.SEVERE,
+                            "Exception while dispatching updates.", e);
+                } finally {
+                    updateBuffer.recycle(batch);
                 }
+                lastDispatchLag = System.nanoTime() - oldest;
+                maxDispatchLag = Math.max(maxDispatchLag, lastDispatchLag);
+                dispatchLags.record(lastDispatchLag);
             }
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Connection to server interrupted.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Delivers a batch of updates to all registered receivers.
+     */
+    private void dispatch(List<UpdateBuffer.Entry> batch) {
+        for (UpdateBuffer.Entry e : batch) {
+            switch (e.kind) {
+                case ViewConnection.MSG_UPDATE_EVENT:
+                    PropertyChangeEvent evt = new PropertyChangeEvent(
+                            this, e.propertyName, e.oldValue, e.value);
+                    if (e.traceId != 0) {
+                        // Keeps the trace if this adapter feeds a relay.
+                        evt.setPropagationId(e.traceId);
+                        traceDelivered(e.traceId);
+                    }
+                    for (UpdateReceiver v : updaters) {
+                        v.updateComponent(evt, e.version);
+                    }
+                    break;
+                case ViewConnection.MSG_UPDATE_OBJECT:
+                    for (UpdateReceiver v : updaters) {
+                        v.updateComponent(e.propertyName, e.value);
+                    }
+                    break;
+                case ViewConnection.MSG_UPDATE_DOUBLE:
+                    for (UpdateReceiver v : updaters) {
+                        v.updateComponent(e.propertyName, e.doubleValue);
+                    }
+                    break;
+                case ViewConnection.MSG_UPDATE_BOOLEAN:
+                    for (UpdateReceiver v : updaters) {
+                        v.updateComponent(e.propertyName, e.booleanValue);
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void traceDelivered(long traceId) {
+        ActionTracer t = tracer;
+        Long start = receivedTraces.remove(traceId);
+        if (t != null && start != null) {
+            t.record(ActionTracer.Stage.DELIVERED, start);
         }
     }
 
@@ -141,10 +799,11 @@ public class NetViewAdapter implements ViewerController {
      * @param evt
      */
     public void propertyChange(PropertyChangeEvent evt) {
-        lastPropertyChanges.put(evt.getPropertyName(), evt.getNewValue());
+        long version = lastPropertyChanges.put(evt.getPropertyName(),
+                evt.getNewValue());
 
         for (UpdateReceiver v : updaters) {
-            v.updateComponent(evt);
+            v.updateComponent(evt, version);
         }
     }
 
@@ -190,22 +849,130 @@ public class NetViewAdapter implements ViewerController {
         }
     }
 
+    /**
+     * Queues the action to be sent to the server by the writer thread. This
+     * will not wait for the network and can safely be called from the event
+     * dispatch thread.
+     * <p>
+     * While the connection is down or if too many actions are waiting to be
+     * sent, the action is dropped and a warning is logged. Actions are not
+     * kept for a later connection, as they would reach the model late.
+     *
+     * @param evt The action described as an event.
+     * @throws IllegalArgumentException If the type of the value is not
+     * registered.
+     */
     @Override
-    public synchronized void userAction(ActionCommand evt) {
-        if (outputStream == null) {
-            throw new IllegalStateException("Not connected to server.");
+    public void userAction(ActionCommand evt) {
+        ActionSender sender = actionSender;
+        if (sender == null) {
+            LOGGER.log(Level.WARNING, ACTION_DROPPED, evt.getPropertyName());
+            return;
+        }
+        ActionTracer t = tracer;
+        if (t != null && has(Handshake.CAP_TRACING)) {
+            if (evt.getTraceId() == 0) {
+                evt = new ActionCommand(evt.getPropertyName(), evt.getValue(),
+                        t.newTraceId());
+            }
+            if (sentTraces.size() >= MAX_PENDING_TRACES) {
+                sentTraces.clear(); // responses that never came
+            }
+            sentTraces.put(evt.getTraceId(), evt.getTimestamp());
+        }
+        if (!sender.offer(evt)) {
+            LOGGER.log(Level.WARNING, ACTION_DROPPED, evt.getPropertyName());
         }
+    }
 
-        try {
-            outputStream.writeByte(ViewConnection.MSG_ACTION);
-            outputStream.writeUTF(evt.getPropertyName());
-            blueprints.writeObject(outputStream, evt.getValue());
-            outputStream.flush();
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to send action to server.", e);
+    /**
+     * Marks actions with the given name as continuous control, like a slider
+     * or a setpoint. If such an action is issued again before the previous
+     * one was sent, only the latest value will be sent.
+     *
+     * @param propertyName Name of the action
+     * @param coalesce true to only send the latest value
+     */
+    public void setCoalescing(String propertyName, boolean coalesce) {
+        if (coalesce) {
+            coalescedActions.add(propertyName);
+        } else {
+            coalescedActions.remove(propertyName);
+        }
+    }
+
+    /**
+     * Subscribes a property. After the first subscription, the server will
+     * only send updates of subscribed properties. The current value of the
+     * property is sent by the server immediately.
+     *
+     * @param propertyName Programmatic name of the property
+     */
+    public void subscribe(String propertyName) {
+        changeSubscription(true, SubscriptionFilter.EXACT, propertyName);
+    }
+
+    /**
+     * Subscribes all properties with names starting with the given prefix.
+     *
+     * @param prefix Beginning of the property names
+     */
+    public void subscribePrefix(String prefix) {
+        changeSubscription(true, SubscriptionFilter.PREFIX, prefix);
+    }
+
+    /**
+     * Removes a subscription that was made with subscribe.
+     *
+     * @param propertyName Programmatic name of the property
+     */
+    public void unsubscribe(String propertyName) {
+        changeSubscription(false, SubscriptionFilter.EXACT, propertyName);
+    }
+
+    /**
+     * Removes a subscription that was made with subscribePrefix.
+     *
+     * @param prefix Beginning of the property names
+     */
+    public void unsubscribePrefix(String prefix) {
+        changeSubscription(false, SubscriptionFilter.PREFIX, prefix);
+    }
+
+    private void changeSubscription(boolean subscribe, byte kind,
+            String name) {
+        Set<String> set = kind == SubscriptionFilter.PREFIX
+                ? subscribedPrefixes : subscribedNames;
+        synchronized (subscribedNames) {
+            if (subscribe ? !set.add(name) : !set.remove(name)) {
+                return; // nothing changed
+            }
+            ActionSender sender = actionSender;
+            if (sender != null && has(Handshake.CAP_SUBSCRIPTIONS)) {
+                sender.offerControl(outputStream -> {
+                    writeSubscription(outputStream, subscribe, kind, name);
+                });
+            }
         }
     }
 
+    private static void writeSubscription(DataOutputStream outputStream,
+            boolean subscribe, byte kind, String name) throws IOException {
+        outputStream.writeByte(subscribe ? ViewConnection.MSG_SUBSCRIBE
+                : ViewConnection.MSG_UNSUBSCRIBE);
+        outputStream.writeByte(kind);
+        outputStream.writeUTF(name);
+    }
+
+    /**
+     * Returns the number of actions that are waiting to be sent.
+     *
+     * @return Number of queued actions
+     */
+    public int getPendingActions() {
+        return actionSender == null ? 0 : actionSender.getPendingActions();
+    }
+
     @Override
     public void registerUpdater(UpdateReceiver updater) {
         if (!updaters.contains(updater)) {
@@ -213,16 +980,133 @@ public class NetViewAdapter implements ViewerController {
         }
     }
 
+    @Override
+    public void removeUpdater(UpdateReceiver updater) {
+        updaters.remove(updater);
+    }
+
     @Override
     public void fireLastPropertyChangesTo(UpdateReceiver view) {
-        for (Map.Entry<String, Object> pair : lastPropertyChanges.entrySet()) {
+        lastPropertyChanges.forEach((propertyName, value) -> {
             PropertyChangeEvent evt = new PropertyChangeEvent(this,
-                    pair.getKey(), null, pair.getValue());
+                    propertyName, null, value);
             view.updateComponent(evt);
-        }
+        });
+    }
+
+    @Override
+    public void copyLastPropertyChanges(Map<String, Object> target) {
+        lastPropertyChanges.copyTo(0, target);
+    }
+
+    @Override
+    public PropertyStore getPropertyStore() {
+        return lastPropertyChanges;
+    }
+
+    /**
+     * Returns the number of updates that were read from the server.
+     *
+     * @return Number of received updates
+     */
+    public long getReceivedUpdates() {
+        return updateBuffer.getOfferedCount();
+    }
+
+    /**
+     * Returns the number of updates that were delivered to the receivers.
+     * This is lower than the number of received updates if updates were
+     * conflated.
+     *
+     * @return Number of dispatched updates
+     */
+    public long getDispatchedUpdates() {
+        return updateBuffer.getDrainedCount();
+    }
+
+    /**
+     * Returns the number of updates that were skipped because a newer value
+     * for the same property was received before the old one was delivered.
+     *
+     * @return Number of conflated updates
+     */
+    public long getConflatedUpdates() {
+        return updateBuffer.getConflatedCount();
+    }
+
+    /**
+     * Returns the number of properties that are waiting to be delivered.
+     *
+     * @return Number of pending updates
+     */
+    public int getPendingUpdates() {
+        return updateBuffer.size();
+    }
+
+    /**
+     * Lag between reading an update from the socket and having it delivered
+     * to all receivers, measured for the oldest update of the last batch.
+     *
+     * @return Lag in nanoseconds
+     */
+    public long getLastDispatchLag() {
+        return lastDispatchLag;
+    }
+
+    /**
+     * Highest lag between reading and delivering updates since connecting.
+     *
+     * @return Lag in nanoseconds
+     */
+    public long getMaxDispatchLag() {
+        return maxDispatchLag;
+    }
+
+    /**
+     * Histogram of the time between reading updates from the socket and
+     * having them delivered, for the oldest update of each batch.
+     *
+     * @return Histogram with values in nanoseconds
+     */
+    public LatencyHistogram getDispatchLagHistogram() {
+        return dispatchLags;
+    }
+
+    /**
+     * Round trip time of the last ping to the server.
+     *
+     * @return Time in nanoseconds, 0 if no pong was received yet.
+     */
+    public long getLastRoundTripTime() {
+        return lastRoundTripTime;
+    }
+
+    /**
+     * Histogram of all measured round trip times to the server.
+     *
+     * @return Histogram with values in nanoseconds
+     */
+    public LatencyHistogram getRoundTripHistogram() {
+        return roundTripTimes;
     }
 
     public void close() {
+        closed = true;
+        if (pinger != null) {
+            pinger.shutdownNow();
+        }
+        ActionSender sender = actionSender;
+        if (sender != null) {
+            sender.close();
+            try {
+                if (!sender.awaitTermination(CLOSE_TIMEOUT)) {
+                    LOGGER.log(Level.WARNING,
+                            "Pending actions were not sent before closing.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         try {
             if (socket != null) {
                 socket.close();
@@ -0,0 +1,269 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.mvc.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes and decodes the snapshot message which transfers a whole table of
+ * property names and their last values as one block.
+ * <p>
+ * After the message type, the snapshot consists of a flags byte, the epoch
+ * and version of the property store it was taken from, the number of entries
+ * and the length of the following block in bytes. The block can
+ * be compressed with deflate, which is marked by the flags. Each entry in the
+ * block is the property name, a tag byte and the value. Double and Boolean
+ * values are written as primitives, all other values with the class
+ * blueprints.
+ * <p>
+ * A large snapshot can be split into parts, each part is a message of its own
+ * with the same layout, but the message type SNAPSHOT_PART. The last part is
+ * marked by a flag. This allows the writer to send other messages between the
+ * parts.
+ * <p>
+ * A snapshot that only contains some properties, like the ones of a new
+ * subscription, is marked as partial. Its version is not a version up to
+ * which the receiver has all changes.
+ *
+ * @author Viktor Alexander Hartung
+ */
+final class SnapshotCodec {
+
+    static final byte FLAG_DEFLATE = 1;
+    static final byte FLAG_LAST = 2;
+    static final byte FLAG_PARTIAL = 4;
+
+    /**
+     * Largest block that is accepted when reading, a larger length can only
+     * come from a stream that lost its framing.
+     */
+    static final int MAX_BLOCK_SIZE = 64 << 20;
+
+    private static final byte TAG_OBJECT = 0;
+    private static final byte TAG_DOUBLE = 1;
+    private static final byte TAG_BOOLEAN = 2;
+
+    /**
+     * Receives the entries of a decoded snapshot.
+     */
+    interface EntryConsumer {
+
+        void accept(String propertyName, Object value) throws IOException,
+                InterruptedException;
+    }
+
+    /**
+     * Called after each part of a snapshot was written.
+     */
+    interface PartListener {
+
+        void partWritten() throws IOException;
+    }
+
+    private SnapshotCodec() {
+    }
+
+    /**
+     * Writes the snapshot message including the message type. The stream is
+     * not flushed.
+     *
+     * @param outputStream Stream to write to
+     * @param values Property names and values to transfer
+     * @param epoch Epoch of the store the values were taken from
+     * @param version Version up to which the values contain all changes
+     * @param partial true if the values are only some of the properties
+     * @param blueprints Registry to write objects
+     * @param compress true to compress the block with deflate
+     * @throws IOException
+     */
+    static void write(DataOutputStream outputStream, Map<String, Object> values,
+            long epoch, long version, boolean partial,
+            ClassBlueprints blueprints, boolean compress) throws IOException {
+        writeMessage(outputStream, ViewConnection.MSG_SNAPSHOT,
+                (byte) (partial ? FLAG_LAST | FLAG_PARTIAL : FLAG_LAST),
+                values.entrySet(), values.size(), epoch, version, blueprints,
+                compress);
+    }
+
+    /**
+     * Writes the snapshot as several part messages with up to partSize
+     * entries each. If there are not more entries than that, a single
+     * snapshot message is written instead.
+     *
+     * @param outputStream Stream to write to
+     * @param values Property names and values to transfer
+     * @param epoch Epoch of the store the values were taken from
+     * @param version Version up to which the values contain all changes
+     * @param partial true if the values are only some of the properties
+     * @param blueprints Registry to write objects
+     * @param compress true to compress the blocks with deflate
+     * @param partSize Maximum number of entries in one part
+     * @param listener Called after each part except the last one
+     * @throws IOException
+     */
+    static void writeParts(DataOutputStream outputStream,
+            Map<String, Object> values, long epoch, long version,
+            boolean partial, ClassBlueprints blueprints, boolean compress,
+            int partSize, PartListener listener) throws IOException {
+        if (values.size() <= partSize) {
+            write(outputStream, values, epoch, version, partial, blueprints,
+                    compress);
+            return;
+        }
+        byte flags = partial ? FLAG_PARTIAL : 0;
+        List<Map.Entry<String, Object>> part = new ArrayList<>(partSize);
+        int written = 0;
+        for (Map.Entry<String, Object> pair : values.entrySet()) {
+            part.add(pair);
+            if (part.size() < partSize
+                    && written + part.size() < values.size()) {
+                continue;
+            }
+            written += part.size();
+            boolean last = written == values.size();
+            writeMessage(outputStream, ViewConnection.MSG_SNAPSHOT_PART,
+                    (byte) (last ? flags | FLAG_LAST : flags), part,
+                    part.size(), epoch, version, blueprints, compress);
+            part.clear();
+            if (!last) {
+                listener.partWritten();
+            }
+        }
+    }
+
+    private static void writeMessage(DataOutputStream outputStream,
+            byte msgType, byte flags,
+            Iterable<Map.Entry<String, Object>> values, int count,
+            long epoch, long version, ClassBlueprints blueprints,
+            boolean compress) throws IOException {
+        ByteArrayOutputStream block = new ByteArrayOutputStream(
+                Math.max(64, count * 24));
+        Deflater deflater = null;
+        OutputStream blockOut = block;
+        if (compress) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+            blockOut = new DeflaterOutputStream(block, deflater, 8192);
+        }
+        try {
+            DataOutputStream entries = new DataOutputStream(blockOut);
+            for (Map.Entry<String, Object> pair : values) {
+                entries.writeUTF(pair.getKey());
+                Object value = pair.getValue();
+                if (value instanceof Double) {
+                    entries.writeByte(TAG_DOUBLE);
+                    entries.writeDouble((Double) value);
+                } else if (value instanceof Boolean) {
+                    entries.writeByte(TAG_BOOLEAN);
+                    entries.writeBoolean((Boolean) value);
+                } else {
+                    entries.writeByte(TAG_OBJECT);
+                    blueprints.writeObject(entries, value);
+                }
+            }
+            entries.close(); // finishes the deflater
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+
+        if (block.size() > MAX_BLOCK_SIZE) {
+            throw new IOException("Snapshot block of " + block.size()
+                    + " bytes is too large.");
+        }
+        outputStream.writeByte(msgType);
+        outputStream.writeByte(compress ? flags | FLAG_DEFLATE : flags);
+        outputStream.writeLong(epoch);
+        outputStream.writeLong(version);
+        outputStream.writeInt(count);
+        outputStream.writeInt(block.size());
+        block.writeTo(outputStream);
+    }
+
+    /**
+     * Reads a snapshot or snapshot part message after the message type was
+     * read.
+     *
+     * @param inputStream Stream to read from
+     * @param blueprints Registry to read objects
+     * @param consumer Will receive each entry of the snapshot
+     * @return Epoch, version and flags of the snapshot as array with three
+     * elements
+     * @throws IOException also if the header contains an invalid count or
+     * length.
+     * @throws InterruptedException if the consumer was interrupted
+     */
+    static long[] read(DataInputStream inputStream, ClassBlueprints blueprints,
+            EntryConsumer consumer) throws IOException, InterruptedException {
+        byte flags = inputStream.readByte();
+        long epoch = inputStream.readLong();
+        long version = inputStream.readLong();
+        int count = inputStream.readInt();
+        int length = inputStream.readInt();
+        if (count < 0 || length < 0 || length > MAX_BLOCK_SIZE) {
+            throw new IOException("Invalid snapshot with " + count
+                    + " entries and " + length + " bytes.");
+        }
+        byte[] block = new byte[length];
+        inputStream.readFully(block);
+
+        InputStream blockIn = new ByteArrayInputStream(block);
+        if ((flags & FLAG_DEFLATE) != 0) {
+            blockIn = new InflaterInputStream(blockIn);
+        }
+        DataInputStream entries = new DataInputStream(blockIn);
+        for (int idx = 0; idx < count; idx++) {
+            String propertyName = entries.readUTF();
+            byte tag = entries.readByte();
+            switch (tag) {
+                case TAG_DOUBLE:
+                    consumer.accept(propertyName, entries.readDouble());
+                    break;
+                case TAG_BOOLEAN:
+                    consumer.accept(propertyName, entries.readBoolean());
+                    break;
+                case TAG_OBJECT:
+                    consumer.accept(propertyName,
+                            blueprints.readObject(entries));
+                    break;
+                default:
+                    throw new IOException("Unknown snapshot tag " + tag);
+            }
+        }
+        entries.close();
+        return new long[]{epoch, version, flags};
+    }
+}
@@ -27,6 +27,16 @@ import com.hartrusion.mvc.ViewerController;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,7 +45,8 @@ import java.util.logging.Logger;
  * ServerNetClientConnection per client.
  *
  * Each client connection is registered as an UpdateReceiver at the controller
- * and immediately receives the latest known property states.
+ * and receives the latest known property states as a snapshot when the client
+ * requests it after connecting.
  *
  * @author Viktor Alexander Hartung
  */
@@ -47,23 +58,174 @@ public class SocketServer {
     private final ViewerController controller;
     private final ClassBlueprints registry;
 
+    private volatile boolean compressSnapshots;
+
+    private final Map<String, WirePrecision> wirePrecisions
+            = new ConcurrentHashMap<>();
+
+    private final Set<String> priorityProperties
+            = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean adaptiveRate = true;
+    private volatile int maxUpdateInterval = 1000;
+
+    private volatile ServerSocket serverSocket;
+
+    private volatile int pingInterval = 1000;
+    private volatile int idleTimeout = 10000;
+
+    /**
+     * Sends the pings to all connections.
+     */
+    private ScheduledExecutorService pinger;
+
+    private final List<ViewConnection> connections
+            = new CopyOnWriteArrayList<>();
+
     public SocketServer(ViewerController controller, ClassBlueprints registry) {
         this.controller = controller;
         this.registry = registry;
     }
 
     /**
-     * Starts the server socket and accepts clients forever.
+     * Enables compression of the snapshot which is sent to each new client
+     * with the last values of all properties. This uses more CPU time on the
+     * server but makes a large snapshot transfer faster on slow connections.
+     *
+     * @param compressSnapshots true to compress snapshots with deflate
+     */
+    public void setCompressSnapshots(boolean compressSnapshots) {
+        this.compressSnapshots = compressSnapshots;
+    }
+
+    /**
+     * Sets the precision with which updates of a double property are sent to
+     * the clients. The property store of the controller keeps the full
+     * precision, snapshots are also sent with full precision. Applies to all
+     * connected clients with the next update of the property.
+     *
+     * @param propertyName Name of a property that is updated as double
+     * @param precision Precision on the wire, null to send full doubles.
+     */
+    public void setWirePrecision(String propertyName,
+            WirePrecision precision) {
+        if (precision == null) {
+            wirePrecisions.remove(propertyName);
+        } else {
+            wirePrecisions.put(propertyName, precision);
+        }
+    }
+
+    /**
+     * Assigns a property to the priority lane of all connections. Updates of
+     * such properties are written before all other updates and in between
+     * large transfers like snapshots. Use this for properties that have to
+     * reach the clients in bounded time, like alarms or the feedback of trip
+     * commands.
+     *
+     * @param propertyName Name of the property
+     * @param priority true for the priority lane, false for the normal one
+     */
+    public void setPriority(String propertyName, boolean priority) {
+        if (priority) {
+            priorityProperties.add(propertyName);
+        } else {
+            priorityProperties.remove(propertyName);
+        }
+    }
+
+    /**
+     * Enables or disables adapting the update rate of each client to the
+     * speed of its link, see ViewConnection. Enabled by default, applies to
+     * clients connecting after this call.
+     *
+     * @param enabled true to lower the rate for clients that do not keep up
+     * @param maxInterval Longest interval between two batches of updates in
+     * milliseconds.
+     */
+    public void setAdaptiveRate(boolean enabled, int maxInterval) {
+        if (maxInterval < 1) {
+            throw new IllegalArgumentException("Invalid maximum interval.");
+        }
+        this.adaptiveRate = enabled;
+        this.maxUpdateInterval = maxInterval;
+    }
+
+    /**
+     * Sets the interval for pings sent to each client and the time after
+     * which a connection is closed if nothing was received. Both are only
+     * used for clients that announce the heartbeat in their hello. Has to be
+     * set before the server is started.
+     *
+     * @param pingInterval Interval in milliseconds
+     * @param idleTimeout Timeout in milliseconds, has to be longer than the
+     * ping interval, 0 disables the timeout.
+     */
+    public void setHeartbeat(int pingInterval, int idleTimeout) {
+        if (pingInterval < 1
+                || (idleTimeout != 0 && idleTimeout <= pingInterval)) {
+            throw new IllegalArgumentException("Invalid heartbeat timing.");
+        }
+        this.pingInterval = pingInterval;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Returns all open client connections. Each connection provides its round
+     * trip times, bytes sent, queue depth, update rate and rate limit.
+     *
+     * @return List of connections at the time of calling
+     */
+    public List<ViewConnection> getConnections() {
+        List<ViewConnection> list = new ArrayList<>();
+        for (ViewConnection connection : connections) {
+            if (!connection.isClosed()) {
+                list.add(connection);
+            }
+        }
+        return list;
+    }
+
+    private void pingAll() {
+        for (ViewConnection connection : connections) {
+            if (connection.isClosed()) {
+                connections.remove(connection);
+            } else {
+                connection.sendPing();
+            }
+        }
+    }
+
+    /**
+     * Starts the server socket and accepts clients until the server gets
+     * closed.
      *
      * @param port
      * @throws IOException
      */
     public void startServer(int port) throws IOException {
-        try (ServerSocket serverSocket = new ServerSocket(port)) {
+        try (ServerSocket ss = new ServerSocket(port)) {
+            serverSocket = ss;
             LOGGER.log(Level.INFO, "Server waiting on port {0}...", port);
 
-            while (true) {
-                Socket socket = serverSocket.accept();
+            pinger = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "SocketServer-Pinger-" + port);
+                t.setDaemon(true);
+                return t;
+            });
+            pinger.scheduleAtFixedRate(this::pingAll, pingInterval,
+                    pingInterval, TimeUnit.MILLISECONDS);
+
+            while (!ss.isClosed()) {
+                Socket socket;
+                try {
+                    socket = ss.accept();
+                } catch (SocketException e) {
+                    if (ss.isClosed()) {
+                        return; // closed by close()
+                    }
+                    throw e;
+                }
                 LOGGER.log(Level.INFO, "Client connected: {0}",
                         socket.getInetAddress());
 
@@ -71,8 +233,17 @@ public class SocketServer {
                     ViewConnection connection
                             = new ViewConnection(socket, registry, controller);
 
+                    // The client will request the snapshot, updates that
+                    // arrive until then are also contained in the snapshot.
+                    connection.setCompressSnapshots(compressSnapshots);
+                    connection.setIdleTimeout(idleTimeout);
+                    connection.setWirePrecisions(wirePrecisions);
+                    connection.setPriorityProperties(priorityProperties);
+                    connection.setAdaptiveRate(adaptiveRate,
+                            maxUpdateInterval);
                     controller.registerUpdater(connection);
-                    controller.fireLastPropertyChangesTo(connection);
+                    connections.removeIf(ViewConnection::isClosed);
+                    connections.add(connection);
                     connection.start();
 
                 } catch (IOException e) {
@@ -86,6 +257,40 @@ public class SocketServer {
                     }
                 }
             }
+        } finally {
+            if (pinger != null) { // null if the port could not be bound
+                pinger.shutdownNow();
+                pinger = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     *
+     * @return Port number or -1 if the server was not started yet.
+     */
+    public int getPort() {
+        ServerSocket ss = serverSocket;
+        return ss == null ? -1 : ss.getLocalPort();
+    }
+
+    /**
+     * Stops accepting new clients and closes all client connections.
+     */
+    public void close() {
+        ServerSocket ss = serverSocket;
+        if (ss != null) {
+            try {
+                ss.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Error while closing server socket.",
+                        e);
+            }
+        }
+        for (ViewConnection connection : connections) {
+            connection.close();
         }
+        connections.clear();
     }
 }
\ No newline at end of file
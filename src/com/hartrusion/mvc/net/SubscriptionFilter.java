@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.mvc.net;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which properties a client wants to receive. A property is matched
+ * if its name is subscribed exactly or if it starts with a subscribed prefix.
+ * <p>
+ * The result for each property name is cached, so the prefixes only have to
+ * be checked once per name. Each modification replaces the whole state
+ * including the cache, this is meant for subscriptions that change rarely
+ * compared to the number of updates.
+ *
+ * @author Viktor Alexander Hartung
+ */
+class SubscriptionFilter {
+
+    static final byte EXACT = 0;
+    static final byte PREFIX = 1;
+
+    private static final class State {
+
+        final Set<String> names;
+        final String[] prefixes;
+        final Map<String, Boolean> cache = new ConcurrentHashMap<>();
+
+        State(Set<String> names, String[] prefixes) {
+            this.names = names;
+            this.prefixes = prefixes;
+        }
+    }
+
+    private volatile State state = new State(new HashSet<>(), new String[0]);
+
+    /**
+     * Checks if a property is subscribed.
+     *
+     * @param propertyName Programmatic name of the property
+     * @return true if updates of the property shall be sent.
+     */
+    boolean matches(String propertyName) {
+        State s = state;
+        if (s.names.contains(propertyName)) {
+            return true;
+        }
+        if (s.prefixes.length == 0) {
+            return false;
+        }
+        Boolean cached = s.cache.get(propertyName);
+        if (cached == null) {
+            cached = false;
+            for (String prefix : s.prefixes) {
+                if (propertyName.startsWith(prefix)) {
+                    cached = true;
+                    break;
+                }
+            }
+            s.cache.put(propertyName, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Adds a subscription.
+     *
+     * @param kind EXACT or PREFIX
+     * @param name Property name or prefix
+     */
+    synchronized void add(byte kind, String name) {
+        modify(kind, name, true);
+    }
+
+    /**
+     * Removes a subscription. The same kind that was used to add it has to be
+     * used.
+     *
+     * @param kind EXACT or PREFIX
+     * @param name Property name or prefix
+     */
+    synchronized void remove(byte kind, String name) {
+        modify(kind, name, false);
+    }
+
+    private void modify(byte kind, String name, boolean add) {
+        Set<String> names = new HashSet<>(state.names);
+        Set<String> prefixes = new HashSet<>(Arrays.asList(state.prefixes));
+        Set<String> target = kind == PREFIX ? prefixes : names;
+        if (add) {
+            target.add(name);
+        } else {
+            target.remove(name);
+        }
+        state = new State(names, prefixes.toArray(new String[0]));
+    }
+}
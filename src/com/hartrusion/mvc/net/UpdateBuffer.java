@@ -0,0 +1,416 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.mvc.net;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A bounded buffer that decouples the thread which receives updates from the
+ * thread that delivers them. Updates are conflated by property name: if a
+ * property is updated again before the pending update was taken out of the
+ * buffer, the pending update is overwritten with the new value and moved to
+ * the end. The entries are therefore always in the order of their latest
+ * change. The number of pending updates is limited by the number of distinct
+ * properties, the capacity only limits that number further.
+ * <p>
+ * The producing thread blocks if the capacity is reached and a new property
+ * would have to be added. The consuming thread takes all pending updates at
+ * once as a batch and hands the entries back after delivering them, so the
+ * entry objects get reused instead of being created for each update.
+ * <p>
+ * Properties can be assigned to a priority lane. Pending updates of those
+ * properties are always taken out before all other updates and can also be
+ * taken out alone, without waiting, while a large batch is being written.
+ *
+ * @author Viktor Alexander Hartung
+ */
+class UpdateBuffer {
+
+    /**
+     * One pending update. Which value fields are used depends on the kind,
+     * which is one of the update message types from ViewConnection.
+     */
+    static final class Entry {
+
+        byte kind;
+        String propertyName;
+        Object oldValue;
+        Object value;
+        double doubleValue;
+        boolean booleanValue;
+
+        /**
+         * System.nanoTime() when the property was first put into the buffer
+         * after it was taken out the last time. Conflated updates keep the
+         * oldest time so the lag describes how long a change waited at most.
+         */
+        long timestamp;
+
+        /**
+         * Version of an event in the property store it came from, 0 if
+         * unknown.
+         */
+        long version;
+
+        /**
+         * Trace ID of the action this event responds to, 0 if none. A traced
+         * response is kept if the event gets conflated with a newer one.
+         */
+        long traceId;
+
+        /**
+         * True if the entry is in the priority lane.
+         */
+        boolean priority;
+
+        /**
+         * Position in the order list of its lane.
+         */
+        private int index;
+
+        private void clear() {
+            propertyName = null;
+            oldValue = null;
+            value = null;
+            traceId = 0;
+        }
+    }
+
+    private final int capacity;
+
+    private final Map<String, Entry> pending = new HashMap<>();
+    private final Lane bulk = new Lane();
+    private final Lane priority = new Lane();
+    private final ArrayDeque<Entry> free = new ArrayDeque<>();
+
+    /**
+     * Names of the properties in the priority lane, read on each new entry.
+     */
+    private volatile Set<String> priorityNames = Collections.emptySet();
+
+    private long offered;
+    private long conflated;
+    private long drained;
+
+    private boolean closed;
+    private boolean wakeUp;
+
+    /**
+     * Creates a new buffer.
+     *
+     * @param capacity Maximum number of distinct properties that can be
+     * pending until the producer gets blocked.
+     */
+    UpdateBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Capacity must be at least 1.");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Sets the names of the properties that are put into the priority lane.
+     * The set is read each time a property gets added to the buffer, it can
+     * be modified later if it is thread safe.
+     *
+     * @param priorityNames Set of property names
+     */
+    void setPriorityNames(Set<String> priorityNames) {
+        this.priorityNames = priorityNames;
+    }
+
+    /**
+     * Checks if updates of a property are put into the priority lane.
+     *
+     * @param propertyName Name of the property
+     * @return true if the property is in the priority lane
+     */
+    boolean isPriority(String propertyName) {
+        Set<String> names = priorityNames;
+        return !names.isEmpty() && names.contains(propertyName);
+    }
+
+    synchronized void offerEvent(String propertyName, Object oldValue,
+            Object newValue) throws InterruptedException {
+        offerEvent(propertyName, oldValue, newValue, 0, 0);
+    }
+
+    synchronized void offerEvent(String propertyName, Object oldValue,
+            Object newValue, long version, long traceId)
+            throws InterruptedException {
+        if (closed) {
+            return;
+        }
+        Entry e = slot(propertyName);
+        if (e.kind == ViewConnection.MSG_UPDATE_EVENT && e.timestamp != 0
+                && version != 0 && e.version > version) {
+            // Events of different threads can arrive out of order, a pending
+            // newer change is not replaced by an older one.
+            if (traceId != 0) {
+                e.traceId = traceId;
+            }
+            return;
+        }
+        if (e.kind != ViewConnection.MSG_UPDATE_EVENT || e.timestamp == 0) {
+            // Keep the old value of the first event that was not delivered
+            // yet, this is what the receiver has seen last.
+            e.oldValue = oldValue;
+        }
+        e.kind = ViewConnection.MSG_UPDATE_EVENT;
+        e.value = newValue;
+        e.version = version;
+        if (traceId != 0) {
+            e.traceId = traceId;
+        }
+        stamp(e);
+    }
+
+    synchronized void offerObject(String propertyName, Object newValue)
+            throws InterruptedException {
+        if (closed) {
+            return;
+        }
+        Entry e = slot(propertyName);
+        e.kind = ViewConnection.MSG_UPDATE_OBJECT;
+        e.traceId = 0;
+        e.oldValue = null;
+        e.value = newValue;
+        stamp(e);
+    }
+
+    synchronized void offerDouble(String propertyName, double newValue)
+            throws InterruptedException {
+        if (closed) {
+            return;
+        }
+        Entry e = slot(propertyName);
+        e.kind = ViewConnection.MSG_UPDATE_DOUBLE;
+        e.traceId = 0;
+        e.oldValue = null;
+        e.value = null;
+        e.doubleValue = newValue;
+        stamp(e);
+    }
+
+    synchronized void offerBoolean(String propertyName, boolean newValue)
+            throws InterruptedException {
+        if (closed) {
+            return;
+        }
+        Entry e = slot(propertyName);
+        e.kind = ViewConnection.MSG_UPDATE_BOOLEAN;
+        e.traceId = 0;
+        e.oldValue = null;
+        e.value = null;
+        e.booleanValue = newValue;
+        stamp(e);
+    }
+
+    /**
+     * Returns the pending entry for the property or adds a new one. Has to be
+     * called with the lock held.
+     */
+    private Entry slot(String propertyName) throws InterruptedException {
+        offered++;
+        Entry e = pending.get(propertyName);
+        while (e == null && pending.size() >= capacity && !closed) {
+            wait();
+            e = pending.get(propertyName);
+        }
+        if (e != null) {
+            conflated++;
+            Lane lane = e.priority ? priority : bulk;
+            lane.remove(e);
+            lane.add(e);
+            return e;
+        }
+        e = free.poll();
+        if (e == null) {
+            e = new Entry();
+        }
+        e.propertyName = propertyName;
+        e.timestamp = 0;
+        e.priority = isPriority(propertyName);
+        pending.put(propertyName, e);
+        (e.priority ? priority : bulk).add(e);
+        notifyAll();
+        return e;
+    }
+
+    private void stamp(Entry e) {
+        if (e.timestamp == 0) {
+            e.timestamp = System.nanoTime();
+        }
+    }
+
+    /**
+     * Moves all pending entries into the given list, waiting until there is
+     * at least one entry or wakeUp was called. If the buffer gets closed, the
+     * remaining entries are returned and after that, the list stays empty.
+     *
+     * @param batch Empty list that will receive the entries of the priority
+     * lane first, each lane in the order of the latest changes.
+     * @throws InterruptedException
+     */
+    synchronized void drainTo(List<Entry> batch) throws InterruptedException {
+        while (pending.isEmpty() && !closed && !wakeUp) {
+            wait();
+        }
+        wakeUp = false;
+        priority.drainTo(batch);
+        bulk.drainTo(batch);
+        drained += pending.size();
+        pending.clear();
+        notifyAll(); // wake up a blocked producer
+    }
+
+    /**
+     * Moves the pending entries of the priority lane into the given list
+     * without waiting. The entries have to be handed back with recycle.
+     *
+     * @param batch List that will receive the entries.
+     * @return Number of entries added.
+     */
+    synchronized int drainPriorityTo(List<Entry> batch) {
+        int start = batch.size();
+        priority.drainTo(batch);
+        int count = batch.size() - start;
+        for (int idx = start; idx < batch.size(); idx++) {
+            pending.remove(batch.get(idx).propertyName);
+        }
+        drained += count;
+        if (count > 0) {
+            notifyAll();
+        }
+        return count;
+    }
+
+    /**
+     * Hands the entries back after they were delivered and clears the list.
+     *
+     * @param batch List that was filled by drainTo before.
+     */
+    synchronized void recycle(List<Entry> batch) {
+        for (Entry e : batch) {
+            e.clear();
+            free.push(e);
+        }
+        batch.clear();
+    }
+
+    /**
+     * Makes a waiting drainTo return, even if there are no entries. This
+     * allows the consumer to do other work on its thread.
+     */
+    synchronized void wakeUp() {
+        wakeUp = true;
+        notifyAll();
+    }
+
+    /**
+     * Closes the buffer. Blocked threads get released, the consumer will
+     * receive the remaining entries with the next call of drainTo. Updates
+     * offered after closing are discarded.
+     */
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    synchronized int size() {
+        return pending.size();
+    }
+
+    synchronized long getOfferedCount() {
+        return offered;
+    }
+
+    synchronized long getConflatedCount() {
+        return conflated;
+    }
+
+    synchronized long getDrainedCount() {
+        return drained;
+    }
+
+    /**
+     * Pending entries of one lane in order of their last change. Entries that
+     * were moved to the end leave a null behind.
+     */
+    private static final class Lane {
+
+        private final ArrayList<Entry> order = new ArrayList<>();
+        private int removed;
+
+        void add(Entry e) {
+            e.index = order.size();
+            order.add(e);
+        }
+
+        void remove(Entry e) {
+            order.set(e.index, null);
+            removed++;
+            if (removed > 64 && removed > order.size() / 2) {
+                compact();
+            }
+        }
+
+        /**
+         * Removes the null entries from the order list.
+         */
+        private void compact() {
+            int target = 0;
+            for (int idx = 0; idx < order.size(); idx++) {
+                Entry e = order.get(idx);
+                if (e != null) {
+                    e.index = target;
+                    order.set(target++, e);
+                }
+            }
+            order.subList(target, order.size()).clear();
+            removed = 0;
+        }
+
+        void drainTo(List<Entry> batch) {
+            for (Entry e : order) {
+                if (e != null) {
+                    batch.add(e);
+                }
+            }
+            order.clear();
+            removed = 0;
+        }
+    }
+}
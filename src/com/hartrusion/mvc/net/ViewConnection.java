@@ -24,13 +24,35 @@
 package com.hartrusion.mvc.net;
 
 import com.hartrusion.mvc.ActionCommand;
+import com.hartrusion.mvc.PropertyStore;
 import com.hartrusion.mvc.UpdateReceiver;
 import com.hartrusion.mvc.ViewerController;
+import com.hartrusion.util.BooleanStateTable;
+import com.hartrusion.util.LatencyHistogram;
+import com.hartrusion.util.RateLimitFilter;
 import java.beans.PropertyChangeEvent;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -39,6 +61,47 @@ import java.util.logging.Logger;
  * Receives ActionCommands from the client and forwards them to the controller.
  * Receives updates from the controller and forwards them to the client.
  * <p>
+ * Updates are not written on the calling thread. They are put into a
+ * conflating buffer and a writer thread for each connection writes all
+ * pending updates and control messages as one batch with a single flush. A
+ * slow client therefore can not block the model, it only gets less
+ * intermediate values.
+ * <p>
+ * The server sends a ping with a timestamp in regular intervals, the client
+ * echoes it back. This gives the round trip time and keeps the connection
+ * alive, a connection that does not receive anything within the idle timeout
+ * gets closed. Pings and the idle timeout are only used for clients that
+ * announced the heartbeat in their hello, older clients do not answer.
+ * <p>
+ * The update rate adapts to the link of each client. The time the writer
+ * needs to write and flush a batch is measured. While the link keeps up,
+ * batches are written as soon as there are updates. If writing takes longer,
+ * because the socket buffers are full, the writer waits a minimum interval
+ * between the batches, which is doubled each time writing is still slow.
+ * The updates in between get conflated in the buffer, so the client receives
+ * the latest values at a slower rate. With each fast batch, the rate is raised
+ * again by a fixed step until it is unlimited again.
+ * <p>
+ * Properties can be assigned to a priority lane, for example trip commands
+ * feedback or alarms. Their updates are written before all others and are
+ * also written in between while a large batch or a snapshot is sent, which
+ * is split into parts for that. A priority update therefore waits at most for
+ * one chunk of other data. Priority updates are sent without a version, as
+ * they overtake older versions; after a reconnect they are sent again.
+ * <p>
+ * A client starts with a hello message that contains its capabilities. The
+ * server answers with its own hello including its type table before any
+ * other message is written, optional encodings are only used if the client
+ * supports them. Clients that do not send a hello within a short timeout
+ * after connecting only get the basic encoding. Clients without versioned
+ * updates do not request a resync, they get all values as update events
+ * right after connecting and the old value with each update.
+ * <p>
+ * Boolean properties that are not in the priority lane are collected in a
+ * bit packed table if the client supports it. Each batch then contains one
+ * group message with the words of the table that changed since the last
+ * batch, and the names of properties that were added to the table.
+ * <p>
  * Generated with the assistance of Copilot using Gemini 3.1 Pro and GPT 5.4
  *
  * @author Viktor Alexander Hartung
@@ -48,11 +111,42 @@ public class ViewConnection implements UpdateReceiver {
     private static final Logger LOGGER
             = Logger.getLogger(ViewConnection.class.getName());
 
+    private static final String UNKNOWN_TYPE
+            = "Unknown message type received from client: {0}";
+
+    static {
+        // A stream that lost its framing produces this warning per byte
+        // read, it is collapsed into summaries.
+        RateLimitFilter.install(LOGGER).setLimit(UNKNOWN_TYPE, 20, 1.0);
+    }
+
     public static final byte MSG_ACTION = 1;
     public static final byte MSG_UPDATE_EVENT = 2;
     public static final byte MSG_UPDATE_OBJECT = 3;
     public static final byte MSG_UPDATE_DOUBLE = 4;
     public static final byte MSG_UPDATE_BOOLEAN = 5;
+    public static final byte MSG_SNAPSHOT = 6;
+    public static final byte MSG_RESYNC = 7;
+    public static final byte MSG_UPDATE_VERSIONED = 8;
+    public static final byte MSG_SUBSCRIBE = 9;
+    public static final byte MSG_UNSUBSCRIBE = 10;
+    public static final byte MSG_PING = 11;
+    public static final byte MSG_PONG = 12;
+    public static final byte MSG_ACTION_TRACED = 13;
+    public static final byte MSG_UPDATE_TRACED = 14;
+    public static final byte MSG_PRECISION = 15;
+    public static final byte MSG_UPDATE_FLOAT = 16;
+    public static final byte MSG_UPDATE_FIXED = 17;
+    public static final byte MSG_UPDATE_DELTA = 18;
+    public static final byte MSG_SNAPSHOT_PART = 19;
+    public static final byte MSG_HELLO = 20;
+    public static final byte MSG_BOOLEAN_GROUP = 21;
+
+    /**
+     * Number of updates or snapshot entries that are written before pending
+     * priority updates get written in between.
+     */
+    private static final int CHUNK_SIZE = 256;
 
     private final Socket socket;
     private final ClassBlueprints registry;
@@ -60,8 +154,157 @@ public class ViewConnection implements UpdateReceiver {
 
     private final DataInputStream dis;
     private final DataOutputStream dos;
+    private final CountingOutputStream counter;
+
+    /**
+     * Updates waiting to be written by the writer thread.
+     */
+    private final UpdateBuffer outbound = new UpdateBuffer(65536);
+
+    /**
+     * Other messages waiting to be written by the writer thread, they are
+     * written after the pending updates.
+     */
+    private final ConcurrentLinkedQueue<ControlMessage> controls
+            = new ConcurrentLinkedQueue<>();
 
     private Thread readThread;
+    private Thread writeThread;
+
+    private volatile boolean compressSnapshots;
+
+    /**
+     * Precision of double properties on the wire, shared by all connections
+     * of a server.
+     */
+    private volatile Map<String, WirePrecision> wirePrecisions
+            = Collections.emptyMap();
+
+    /**
+     * Entries of the priority lane written between chunks, only used by the
+     * writer thread.
+     */
+    private final List<UpdateBuffer.Entry> priorityBatch = new ArrayList<>();
+
+    /**
+     * State of the properties with a wire precision that were announced to
+     * the client, only used by the writer thread.
+     */
+    private final Map<String, WirePrecision.Channel> precisionChannels
+            = new HashMap<>();
+
+    /**
+     * Properties the client has subscribed, null if the client never sent a
+     * subscription and receives all properties.
+     */
+    private volatile SubscriptionFilter subscriptions;
+
+    /**
+     * Set after the first snapshot was sent.
+     */
+    private volatile boolean resynced;
+
+    /**
+     * Set when the client sent a traced action, only then responses will be
+     * sent with their trace ID.
+     */
+    private volatile boolean tracing;
+
+    /**
+     * Time in milliseconds the writer waits for the hello of the client.
+     * Older clients send nothing until the first action, but expect the
+     * initial values right away.
+     */
+    static final long HELLO_TIMEOUT = 1000;
+
+    private static final int HANDSHAKE_NONE = 0;
+    private static final int HANDSHAKE_HELLO = 1;
+    private static final int HANDSHAKE_LEGACY = 2;
+
+    /**
+     * Decided once, either by the reader receiving the first message or by
+     * the writer if nothing was received within the hello timeout.
+     */
+    private final AtomicInteger handshakeState = new AtomicInteger();
+
+    /**
+     * Released when the handshake state is decided, the writer waits for
+     * this to know if the client sent a hello.
+     */
+    private final CountDownLatch handshakeDone = new CountDownLatch(1);
+    private volatile Handshake clientHello;
+    private volatile int capabilities;
+    private volatile int idleTimeout;
+
+    /**
+     * Boolean properties sent as group, synchronized on itself. Index order
+     * is the same on the client, as the names are sent in order.
+     */
+    private final BooleanStateTable booleans = new BooleanStateTable();
+    private int booleanNamesSent;
+
+    /**
+     * The group message is assembled in here while holding the lock of the
+     * table and written to the socket after releasing it.
+     */
+    private final ByteArrayOutputStream groupBytes
+            = new ByteArrayOutputStream();
+    private final DataOutputStream groupOut = new DataOutputStream(groupBytes);
+
+    private final LatencyHistogram roundTripTimes = new LatencyHistogram();
+    private volatile long lastRoundTripTime;
+
+    /**
+     * Writing and flushing a batch longer than this means the link does not
+     * keep up.
+     */
+    private static final long SLOW_WRITE = 5_000_000L;
+    /**
+     * Shortest interval between batches when the rate is limited, a shorter
+     * interval removes the limit.
+     */
+    private static final long MIN_INTERVAL = 10_000_000L;
+    /**
+     * Raise of the update rate in 1/s for each batch that was written fast.
+     */
+    private static final double RATE_STEP = 2.0;
+
+    private static final int SEND_BUFFER = 65536;
+
+    private volatile boolean adaptiveRate = true;
+    private volatile long maxInterval = 1_000_000_000L;
+    /**
+     * Current minimum time between two batches in nanoseconds, 0 means the
+     * rate is not limited.
+     */
+    private volatile long updateInterval;
+
+    /**
+     * Set by the writer thread if the current batch contains a snapshot.
+     */
+    private boolean snapshotWritten;
+
+    /**
+     * Names of the priority updates written while the snapshot of a client
+     * without versions is written, null otherwise. Only used by the writer
+     * thread.
+     */
+    private Set<String> writtenDuringSnapshot;
+
+    /**
+     * Version of the property store up to which all changes were written,
+     * only used by the writer thread. The controller passes changes of
+     * different threads without a lock, so a change with a higher version
+     * can be written before one with a lower version. Versions sent to the
+     * client are limited to this value, as the client requests a resync
+     * beginning with the last version it received.
+     */
+    private long completeVersion;
+
+    private volatile long updatesSent;
+    private volatile double updateRate;
+    private long rateWindowStart = System.nanoTime();
+    private long rateWindowUpdates;
 
     public ViewConnection(Socket socket,
             ClassBlueprints registry,
@@ -69,12 +312,20 @@ public class ViewConnection implements UpdateReceiver {
         this.socket = socket;
         this.registry = registry;
         this.controller = controller;
-        this.dis = new DataInputStream(socket.getInputStream());
-        this.dos = new DataOutputStream(socket.getOutputStream());
+        // Messages are batched by the writer thread, waiting for more data
+        // to fill a packet would only add latency.
+        socket.setTcpNoDelay(true);
+        // A small send buffer makes writing block early if the client does
+        // not keep up, instead of queuing seconds of outdated updates.
+        socket.setSendBufferSize(SEND_BUFFER);
+        this.dis = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream()));
+        this.counter = new CountingOutputStream(socket.getOutputStream());
+        this.dos = new DataOutputStream(new BufferedOutputStream(counter));
     }
 
     /**
-     * Starts the reader thread for incoming client messages.
+     * Starts the reader and writer threads of this connection.
      */
     public void start() {
         readThread = new Thread(() -> {
@@ -82,6 +333,28 @@ public class ViewConnection implements UpdateReceiver {
         }, "ServerNetClientConnection-ReadThread-" + socket.getPort());
         readThread.setDaemon(true);
         readThread.start();
+
+        writeThread = new Thread(() -> {
+            writeLoop();
+        }, "ServerNetClientConnection-WriteThread-" + socket.getPort());
+        writeThread.setDaemon(true);
+        writeThread.start();
+    }
+
+    /**
+     * Sets the time after which the connection is closed if nothing was
+     * received from the client. As the client answers pings, the ping
+     * interval has to be shorter than this. The timeout is only applied once
+     * the client announced the heartbeat in its hello.
+     *
+     * @param milliseconds Timeout, 0 to never time out.
+     * @throws IOException
+     */
+    public void setIdleTimeout(int milliseconds) throws IOException {
+        idleTimeout = milliseconds;
+        if (has(Handshake.CAP_HEARTBEAT)) {
+            socket.setSoTimeout(milliseconds);
+        }
     }
 
     private void readLoop() {
@@ -89,120 +362,669 @@ public class ViewConnection implements UpdateReceiver {
             while (!socket.isClosed()) {
                 byte msgType = dis.readByte();
 
-                if (msgType == MSG_ACTION) {
+                if (msgType == MSG_HELLO) {
+                    Handshake hello = Handshake.read(dis);
+                    if (!handshakeState.compareAndSet(HANDSHAKE_NONE,
+                            HANDSHAKE_HELLO)) {
+                        LOGGER.log(Level.WARNING,
+                                "Ignored late hello from {0}", socket);
+                        continue;
+                    }
+                    capabilities = hello.capabilities
+                            & Handshake.CAPABILITIES;
+                    clientHello = hello;
+                    if (has(Handshake.CAP_HEARTBEAT)) {
+                        socket.setSoTimeout(idleTimeout);
+                    }
+                    handshakeDone.countDown();
+                    continue;
+                }
+                // Without a hello, this is a client without capabilities.
+                handshakeState.compareAndSet(HANDSHAKE_NONE, HANDSHAKE_LEGACY);
+                handshakeDone.countDown();
+
+                if (msgType == MSG_ACTION || msgType == MSG_ACTION_TRACED) {
                     String propertyName = dis.readUTF();
                     Object value = registry.readObject(dis);
 
-                    ActionCommand action = new ActionCommand(propertyName, value);
+                    ActionCommand action;
+                    if (msgType == MSG_ACTION_TRACED) {
+                        // Timestamp starts here, clocks of client and server
+                        // are not compared.
+                        action = new ActionCommand(propertyName, value,
+                                dis.readLong());
+                        tracing = true;
+                    } else {
+                        action = new ActionCommand(propertyName, value);
+                    }
                     controller.userAction(action);
+                } else if (msgType == MSG_PING) {
+                    long timestamp = dis.readLong();
+                    offerControl(out -> {
+                        out.writeByte(MSG_PONG);
+                        out.writeLong(timestamp);
+                    });
+                } else if (msgType == MSG_PONG) {
+                    long rtt = System.nanoTime() - dis.readLong();
+                    lastRoundTripTime = rtt;
+                    roundTripTimes.record(rtt);
+                } else if (msgType == MSG_RESYNC) {
+                    long epoch = dis.readLong();
+                    long version = dis.readLong();
+                    PropertyStore store = controller.getPropertyStore();
+                    if (store == null || epoch != store.getEpoch()) {
+                        version = 0; // different server instance, send all
+                    }
+                    requestSnapshot(version, null);
+                    resynced = true;
+                } else if (msgType == MSG_SUBSCRIBE
+                        || msgType == MSG_UNSUBSCRIBE) {
+                    byte kind = dis.readByte();
+                    String name = dis.readUTF();
+                    updateSubscription(msgType == MSG_SUBSCRIBE, kind, name);
                 } else {
-                    LOGGER.log(Level.WARNING,
-                            "Unknown message type received from client: {0}",
-                            msgType);
+                    LOGGER.log(Level.WARNING, UNKNOWN_TYPE, msgType);
                 }
             }
         } catch (IOException e) {
-            LOGGER.log(Level.WARNING,
-                    "Connection to client interrupted: " + socket, e);
+            if (!socket.isClosed()) {
+                LOGGER.log(Level.WARNING,
+                        "Connection to client interrupted: " + socket, e);
+            }
         } finally {
             close();
         }
     }
 
-    private synchronized void sendPropertyChangeEvent(PropertyChangeEvent evt) {
-        if (socket.isClosed()) {
-            return;
-        }
-
+    private void writeLoop() {
+        List<UpdateBuffer.Entry> batch = new ArrayList<>();
         try {
-            dos.writeByte(MSG_UPDATE_EVENT);
-            dos.writeUTF(evt.getPropertyName());
-            registry.writeObject(dos, evt.getOldValue());
-            registry.writeObject(dos, evt.getNewValue());
-            dos.flush();
+            if (!handshakeDone.await(HELLO_TIMEOUT, TimeUnit.MILLISECONDS)
+                    && !handshakeState.compareAndSet(HANDSHAKE_NONE,
+                            HANDSHAKE_LEGACY)) {
+                // The hello just arrived, the reader finishes it.
+                handshakeDone.await();
+            }
+            Handshake hello = clientHello;
+            if (hello != null) {
+                new Handshake(
+                        (short) Math.min(hello.version,
+                                Handshake.PROTOCOL_VERSION),
+                        capabilities, registry.getTypeTable()).write(dos);
+            }
+            if (!has(Handshake.CAP_VERSIONED)) {
+                // This client will not request a resync, it gets all values
+                // as events right away.
+                resynced = true;
+                writeSnapshot(dos, 0, null);
+            }
+            while (true) {
+                // All changes up to the published version are in the buffer
+                // before it gets drained.
+                PropertyStore store = controller.getPropertyStore();
+                long published = store == null ? 0
+                        : store.getPublishedVersion();
+                outbound.drainTo(batch);
+                if (batch.isEmpty() && outbound.isClosed()) {
+                    return;
+                }
+                long tickStart = System.nanoTime();
+                int chunk = 0;
+                for (UpdateBuffer.Entry e : batch) {
+                    writeEntry(e);
+                    if (!e.priority && ++chunk == CHUNK_SIZE) {
+                        chunk = 0;
+                        writePriorityLane();
+                    }
+                }
+                int written = batch.size() + writeBooleanGroup();
+                outbound.recycle(batch);
+                completeVersion = Math.max(completeVersion, published);
+                // Control messages after the updates, a snapshot will then
+                // contain anything that was queued before it was requested.
+                ControlMessage message;
+                while ((message = controls.poll()) != null) {
+                    message.write(dos);
+                }
+                dos.flush();
+                countUpdates(written);
+                if (adaptiveRate) {
+                    long now = System.nanoTime();
+                    if (snapshotWritten) {
+                        // A snapshot is a one time transfer, it would make
+                        // the link look slow for all following updates.
+                        snapshotWritten = false;
+                    } else {
+                        adaptInterval(now - tickStart);
+                    }
+                    long wait = tickStart + updateInterval - now;
+                    if (wait > 0) {
+                        // Updates arriving meanwhile get conflated.
+                        Thread.sleep(wait / 1_000_000L,
+                                (int) (wait % 1_000_000L));
+                    }
+                } else {
+                    updateInterval = 0;
+                }
+            }
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE,
-                    "Error while sending PropertyChangeEvent to client "
-                    + socket, e);
+            if (!socket.isClosed()) {
+                LOGGER.log(Level.SEVERE,
+                        "Error while sending to client " + socket, e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
             close();
         }
     }
 
-    private synchronized void sendObjectUpdate(String propertyName, Object newValue) {
-        if (socket.isClosed()) {
+    /**
+     * Writes and flushes the pending updates of the priority lane, called by
+     * the writer thread between chunks of other data.
+     */
+    private void writePriorityLane() throws IOException {
+        if (outbound.drainPriorityTo(priorityBatch) == 0) {
             return;
         }
+        for (UpdateBuffer.Entry e : priorityBatch) {
+            writeEntry(e);
+            if (writtenDuringSnapshot != null) {
+                writtenDuringSnapshot.add(e.propertyName);
+            }
+        }
+        int written = priorityBatch.size();
+        outbound.recycle(priorityBatch);
+        dos.flush();
+        countUpdates(written);
+    }
 
-        try {
-            dos.writeByte(MSG_UPDATE_OBJECT);
-            dos.writeUTF(propertyName);
-            registry.writeObject(dos, newValue);
-            dos.flush();
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE,
-                    "Error while sending object update to client " + socket
-                    + " for " + propertyName, e);
-            close();
+    private void writeEntry(UpdateBuffer.Entry e) throws IOException {
+        // Priority updates overtake others, a version would make the client
+        // assume it has received everything before.
+        long version = e.priority ? 0 : Math.min(e.version, completeVersion);
+        switch (e.kind) {
+            case MSG_UPDATE_EVENT:
+                if (e.version > 0 && isOutdated(e)) {
+                    return; // the newer change follows
+                }
+                if (e.traceId != 0 && tracing
+                        && has(Handshake.CAP_TRACING)) {
+                    dos.writeByte(MSG_UPDATE_TRACED);
+                    dos.writeUTF(e.propertyName);
+                    dos.writeLong(version);
+                    dos.writeLong(e.traceId);
+                    registry.writeObject(dos, e.value);
+                } else if (version > 0 && has(Handshake.CAP_VERSIONED)) {
+                    // The client knows the old value from its own store,
+                    // instead of the old value the version gets transferred.
+                    dos.writeByte(MSG_UPDATE_VERSIONED);
+                    dos.writeUTF(e.propertyName);
+                    dos.writeLong(version);
+                    registry.writeObject(dos, e.value);
+                } else {
+                    dos.writeByte(MSG_UPDATE_EVENT);
+                    dos.writeUTF(e.propertyName);
+                    registry.writeObject(dos, e.oldValue);
+                    registry.writeObject(dos, e.value);
+                }
+                break;
+            case MSG_UPDATE_OBJECT:
+                dos.writeByte(MSG_UPDATE_OBJECT);
+                dos.writeUTF(e.propertyName);
+                registry.writeObject(dos, e.value);
+                break;
+            case MSG_UPDATE_DOUBLE:
+                WirePrecision precision = wirePrecisions.isEmpty()
+                        || !has(Handshake.CAP_PRECISION) ? null
+                        : wirePrecisions.get(e.propertyName);
+                if (precision != null) {
+                    writeWithPrecision(e, precision);
+                    break;
+                }
+                dos.writeByte(MSG_UPDATE_DOUBLE);
+                dos.writeUTF(e.propertyName);
+                dos.writeDouble(e.doubleValue);
+                break;
+            case MSG_UPDATE_BOOLEAN:
+                dos.writeByte(MSG_UPDATE_BOOLEAN);
+                dos.writeUTF(e.propertyName);
+                dos.writeBoolean(e.booleanValue);
+                break;
+        }
+    }
+
+    /**
+     * Checks if the property store already has a newer change of the entry.
+     * This happens if the entry was offered after the newer one was written,
+     * the newer change will then be offered again after it.
+     */
+    private boolean isOutdated(UpdateBuffer.Entry e) {
+        PropertyStore store = controller.getPropertyStore();
+        return store != null && store.getVersion(e.propertyName) > e.version;
+    }
+
+    /**
+     * Writes the changes of the boolean table as one group message.
+     *
+     * @return Number of changed properties
+     */
+    private int writeBooleanGroup() throws IOException {
+        int changes;
+        synchronized (booleans) {
+            if (!booleans.hasChanges()) {
+                return 0;
+            }
+            changes = booleans.countChanges();
+            groupBytes.reset();
+            groupOut.writeByte(MSG_BOOLEAN_GROUP);
+            groupOut.writeInt(booleans.size() - booleanNamesSent);
+            for (int idx = booleanNamesSent; idx < booleans.size(); idx++) {
+                groupOut.writeUTF(booleans.getName(idx));
+            }
+            booleanNamesSent = booleans.size();
+            booleans.writeChanges(groupOut);
+            booleans.publish();
+        }
+        groupBytes.writeTo(dos);
+        return changes;
+    }
+
+    /**
+     * Lowers the update rate by doubling the interval if writing was slow and
+     * raises it by a fixed step if writing took only a fraction of the
+     * interval.
+     *
+     * @param writeTime Time for writing and flushing the last batch
+     */
+    private void adaptInterval(long writeTime) {
+        long interval = updateInterval;
+        if (writeTime > Math.max(SLOW_WRITE, interval / 2)) {
+            interval = Math.max(interval * 2, writeTime * 2);
+            interval = Math.min(Math.max(interval, MIN_INTERVAL), maxInterval);
+        } else if (interval > 0 && writeTime < interval / 4) {
+            double rate = 1e9 / interval + RATE_STEP;
+            interval = (long) (1e9 / rate);
+            if (interval < MIN_INTERVAL) {
+                interval = 0;
+            }
         }
+        updateInterval = interval;
     }
 
-    private synchronized void sendDoubleUpdate(String propertyName, double newValue) {
-        if (socket.isClosed()) {
+    /**
+     * Writes a double update with reduced precision. The precision is
+     * announced before the first update of the property or when it changed.
+     */
+    private void writeWithPrecision(UpdateBuffer.Entry e,
+            WirePrecision precision) throws IOException {
+        WirePrecision.Channel channel = precisionChannels.get(e.propertyName);
+        if (channel == null || channel.precision != precision) {
+            precision.writeAnnouncement(dos, e.propertyName);
+            channel = new WirePrecision.Channel(precision);
+            precisionChannels.put(e.propertyName, channel);
+        }
+        channel.write(dos, e.propertyName, e.doubleValue);
+    }
+
+    private void countUpdates(int written) {
+        updatesSent += written;
+        rateWindowUpdates += written;
+        long now = System.nanoTime();
+        if (now - rateWindowStart >= 1_000_000_000L) {
+            updateRate = rateWindowUpdates * 1e9 / (now - rateWindowStart);
+            rateWindowStart = now;
+            rateWindowUpdates = 0;
+        }
+    }
+
+    /**
+     * Queues a message to be written by the writer thread.
+     */
+    private void offerControl(ControlMessage message) {
+        controls.add(message);
+        outbound.wakeUp();
+    }
+
+    /**
+     * Sends a ping with the current time to the client. The client will
+     * answer with a pong containing the same time, which gives the round
+     * trip time. Called by the SocketServer in regular intervals. Does
+     * nothing if the client did not announce the heartbeat.
+     */
+    public void sendPing() {
+        if (!has(Handshake.CAP_HEARTBEAT)) {
             return;
         }
+        offerControl(out -> {
+            out.writeByte(MSG_PING);
+            out.writeLong(System.nanoTime()); // time of writing, not queuing
+        });
+    }
 
-        try {
-            dos.writeByte(MSG_UPDATE_DOUBLE);
-            dos.writeUTF(propertyName);
-            dos.writeDouble(newValue);
-            dos.flush();
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE,
-                    "Error while sending double update to client " + socket
-                    + " for " + propertyName, e);
-            close();
+    /**
+     * Enables or disables adapting the update rate to the speed of the link.
+     * Enabled by default.
+     *
+     * @param enabled true to lower the rate if the client does not keep up
+     * @param maxInterval Longest interval between two batches of updates in
+     * milliseconds, this is the lowest rate a client gets.
+     */
+    public void setAdaptiveRate(boolean enabled, int maxInterval) {
+        if (maxInterval < 1) {
+            throw new IllegalArgumentException("Invalid maximum interval.");
         }
+        this.maxInterval = Math.max(maxInterval * 1_000_000L, MIN_INTERVAL);
+        this.adaptiveRate = enabled;
+    }
+
+    /**
+     * Sets the map with the wire precision of double properties. The map is
+     * read on each double update, so it has to be thread safe.
+     *
+     * @param wirePrecisions Precision by property name
+     */
+    void setWirePrecisions(Map<String, WirePrecision> wirePrecisions) {
+        this.wirePrecisions = wirePrecisions;
+    }
+
+    /**
+     * Sets the names of the properties that are sent in the priority lane.
+     * The set is read for each update, so it has to be thread safe.
+     *
+     * @param priorityProperties Set of property names
+     */
+    void setPriorityProperties(Set<String> priorityProperties) {
+        outbound.setPriorityNames(priorityProperties);
+    }
+
+    /**
+     * Enables compression of snapshots sent to this client.
+     *
+     * @param compressSnapshots true to compress with deflate
+     */
+    public void setCompressSnapshots(boolean compressSnapshots) {
+        this.compressSnapshots = compressSnapshots;
     }
 
-    private synchronized void sendBooleanUpdate(String propertyName, boolean newValue) {
-        if (socket.isClosed()) {
+    /**
+     * Sends the last property values of the controller as one snapshot
+     * message. This replaces sending one event for each property to
+     * initialize the client. Called when the client requests a resync, which
+     * it does after connecting. Clients that do not support snapshots get one
+     * update event for each property instead.
+     * <p>
+     * The snapshot is taken and written by the writer thread after all
+     * updates that were queued before this call.
+     *
+     * @param sinceVersion Only send properties changed after this version of
+     * the controllers property store, 0 sends all properties.
+     * @param filter Only send properties accepted by this filter in addition
+     * to the subscriptions of the client, can be null. With a filter, the
+     * snapshot is marked as partial and the client keeps the version it
+     * resyncs from.
+     */
+    public void requestSnapshot(long sinceVersion, Predicate<String> filter) {
+        offerControl(out -> {
+            writeSnapshot(out, sinceVersion, filter);
+        });
+    }
+
+    private void writeSnapshot(DataOutputStream out, long sinceVersion,
+            Predicate<String> filter) throws IOException {
+        Map<String, Object> values = new HashMap<>();
+        PropertyStore store = controller.getPropertyStore();
+        SubscriptionFilter s = subscriptions;
+        Predicate<String> accepted = filter;
+        if (s != null) {
+            accepted = filter == null ? s::matches
+                    : filter.and(s::matches);
+        }
+        long epoch = 0;
+        long version = 0;
+        if (store != null) {
+            epoch = store.getEpoch();
+            version = store.copyTo(sinceVersion, accepted, values);
+        } else {
+            // Without versions, the client always gets all values.
+            controller.copyLastPropertyChanges(values);
+            if (accepted != null) {
+                values.keySet().removeIf(accepted.negate());
+            }
+        }
+        snapshotWritten = true;
+        if (!has(Handshake.CAP_VERSIONED)) {
+            // Clients without snapshot support get one event per property,
+            // as if the values were just changed. The values were copied
+            // before, priority updates written in between are newer and must
+            // not be overwritten by them.
+            writtenDuringSnapshot = new HashSet<>();
+            try {
+                int chunk = 0;
+                for (Map.Entry<String, Object> pair : values.entrySet()) {
+                    if (writtenDuringSnapshot.contains(pair.getKey())) {
+                        continue;
+                    }
+                    out.writeByte(MSG_UPDATE_EVENT);
+                    out.writeUTF(pair.getKey());
+                    registry.writeObject(out, null);
+                    registry.writeObject(out, pair.getValue());
+                    if (++chunk == CHUNK_SIZE) {
+                        chunk = 0;
+                        writePriorityLane();
+                    }
+                }
+            } finally {
+                writtenDuringSnapshot = null;
+            }
             return;
         }
+        boolean compress = compressSnapshots
+                && has(Handshake.CAP_COMPRESSION);
+        // A filtered snapshot does not contain all changes up to its
+        // version, the client must not resync from there.
+        boolean partial = filter != null;
+        if (has(Handshake.CAP_SNAPSHOT_PARTS)) {
+            SnapshotCodec.writeParts(out, values, epoch, version, partial,
+                    registry, compress, CHUNK_SIZE * 4,
+                    this::writePriorityLane);
+        } else {
+            SnapshotCodec.write(out, values, epoch, version, partial,
+                    registry, compress);
+        }
+    }
 
-        try {
-            dos.writeByte(MSG_UPDATE_BOOLEAN);
-            dos.writeUTF(propertyName);
-            dos.writeBoolean(newValue);
-            dos.flush();
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE,
-                    "Error while sending boolean update to client " + socket
-                    + " for " + propertyName, e);
-            close();
+    private boolean has(int capability) {
+        return (capabilities & capability) != 0;
+    }
+
+    /**
+     * Adds or removes a subscription of the client. If the client was already
+     * initialized, the current values of newly subscribed properties are sent
+     * as a snapshot.
+     */
+    private void updateSubscription(boolean subscribe, byte kind,
+            String name) {
+        synchronized (this) {
+            if (subscriptions == null) {
+                subscriptions = new SubscriptionFilter();
+            }
+        }
+        if (!subscribe) {
+            subscriptions.remove(kind, name);
+            return;
+        }
+        subscriptions.add(kind, name);
+        if (resynced) {
+            if (kind == SubscriptionFilter.PREFIX) {
+                requestSnapshot(0, n -> n.startsWith(name));
+            } else {
+                requestSnapshot(0, n -> n.equals(name));
+            }
         }
     }
 
+    private boolean isSubscribed(String propertyName) {
+        SubscriptionFilter s = subscriptions;
+        return s == null || s.matches(propertyName);
+    }
+
     @Override
     public void updateComponent(PropertyChangeEvent evt) {
-        sendPropertyChangeEvent(evt);
+        updateComponent(evt, 0);
+    }
+
+    @Override
+    public void updateComponent(PropertyChangeEvent evt, long version) {
+        if (!isSubscribed(evt.getPropertyName())) {
+            return;
+        }
+        long traceId = evt.getPropagationId() instanceof Long
+                ? (Long) evt.getPropagationId() : 0;
+        try {
+            outbound.offerEvent(evt.getPropertyName(), evt.getOldValue(),
+                    evt.getNewValue(), version, traceId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Override
     public void updateComponent(String propertyName, Object newValue) {
-        sendObjectUpdate(propertyName, newValue);
+        if (!isSubscribed(propertyName)) {
+            return;
+        }
+        try {
+            outbound.offerObject(propertyName, newValue);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Override
     public void updateComponent(String propertyName, double newValue) {
-        sendDoubleUpdate(propertyName, newValue);
+        if (!isSubscribed(propertyName)) {
+            return;
+        }
+        try {
+            outbound.offerDouble(propertyName, newValue);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Override
     public void updateComponent(String propertyName, boolean newValue) {
-        sendBooleanUpdate(propertyName, newValue);
+        if (!isSubscribed(propertyName)) {
+            return;
+        }
+        if (has(Handshake.CAP_BOOLEAN_GROUP)) {
+            boolean priority = outbound.isPriority(propertyName);
+            synchronized (booleans) {
+                // A property moved to the priority lane keeps its value
+                // in the table, an older group can not overwrite it then.
+                if (!priority || booleans.indexOf(propertyName) >= 0) {
+                    booleans.set(propertyName, newValue);
+                }
+            }
+            if (!priority) {
+                outbound.wakeUp();
+                return;
+            }
+        }
+        try {
+            outbound.offerBoolean(propertyName, newValue);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Address of the connected client.
+     *
+     * @return Remote address of the socket
+     */
+    public SocketAddress getRemoteAddress() {
+        return socket.getRemoteSocketAddress();
+    }
+
+    /**
+     * Round trip time of the last ping.
+     *
+     * @return Time in nanoseconds, 0 if no pong was received yet.
+     */
+    public long getLastRoundTripTime() {
+        return lastRoundTripTime;
+    }
+
+    /**
+     * Histogram of all measured round trip times in nanoseconds.
+     *
+     * @return Histogram of this connection
+     */
+    public LatencyHistogram getRoundTripHistogram() {
+        return roundTripTimes;
+    }
+
+    /**
+     * Number of bytes written to the socket.
+     *
+     * @return Bytes sent to the client
+     */
+    public long getBytesSent() {
+        return counter.count;
     }
 
-    public synchronized void close() {
+    /**
+     * Number of updates and control messages waiting to be written.
+     *
+     * @return Queue depth
+     */
+    public int getQueueDepth() {
+        return outbound.size() + controls.size();
+    }
+
+    /**
+     * Number of updates written to the client.
+     *
+     * @return Number of updates sent
+     */
+    public long getUpdatesSent() {
+        return updatesSent;
+    }
+
+    /**
+     * Current limit of the update rate for this client, which is lowered if
+     * the link to the client does not keep up.
+     *
+     * @return Maximum number of batches per second, 0 if not limited.
+     */
+    public double getUpdateRateLimit() {
+        long interval = updateInterval;
+        return interval == 0 ? 0 : 1e9 / interval;
+    }
+
+    /**
+     * Updates written per second, averaged over about one second.
+     *
+     * @return Update rate in 1/s
+     */
+    public double getUpdateRate() {
+        return updateRate;
+    }
+
+    public boolean isClosed() {
+        return socket.isClosed();
+    }
+
+    public void close() {
+        outbound.close();
+        handshakeDone.countDown();
+        try {
+            controller.removeUpdater(this);
+        } catch (UnsupportedOperationException e) {
+            // Updates offered to the closed buffer are discarded.
+        }
         try {
             socket.close();
         } catch (IOException e) {
@@ -210,4 +1032,29 @@ public class ViewConnection implements UpdateReceiver {
                     "Error while closing client socket " + socket, e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Counts the bytes written to the socket. Only the writer thread writes,
+     * so a volatile counter is sufficient.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private volatile long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.mvc.net;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Describes with which precision a double property is transferred over the
+ * network. Many values are displayed with only a few digits, sending the full
+ * 64 bit double for those is a waste of bandwidth. The server converts the
+ * value when writing it, its property store keeps the full precision. The
+ * client converts it back to a double and does not need to know the
+ * precision in advance, it is announced by the server once per connection.
+ * <p>
+ * Available precisions:
+ * <ul>
+ * <li>float32: the value is sent as 32 bit float.</li>
+ * <li>fixed: the value is rounded to a multiple of the resolution and sent
+ * as 32 bit integer.</li>
+ * <li>delta: the value is rounded to a multiple of the resolution, only the
+ * difference to the previously sent value is transferred as variable length
+ * integer. Slowly changing values only need one or two bytes.</li>
+ * </ul>
+ * Values that can not be represented, like NaN or values exceeding the
+ * integer range, are sent as full double.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public final class WirePrecision {
+
+    static final byte FLOAT32 = 1;
+    static final byte FIXED = 2;
+    static final byte DELTA = 3;
+
+    private static final WirePrecision FLOAT32_PRECISION
+            = new WirePrecision(FLOAT32, 0.0);
+
+    final byte type;
+    final double resolution;
+
+    /**
+     * Number of steps per unit if that is an integer, otherwise 0. Decimal
+     * resolutions like 0.1 can not be represented exactly, multiplying with
+     * them gives results like 1.2000000000000002 where dividing by 10 gives
+     * the nearest double to the decimal value.
+     */
+    final double scale;
+
+    private WirePrecision(byte type, double resolution) {
+        this.type = type;
+        this.resolution = resolution;
+        this.scale = resolution > 0 ? integerReciprocal(resolution) : 0.0;
+    }
+
+    /**
+     * Returns 1 / resolution if it is an integer within the error of the
+     * resolution itself, otherwise 0.
+     */
+    private static double integerReciprocal(double resolution) {
+        double r = 1.0 / resolution;
+        double n = Math.rint(r);
+        return Math.abs(r - n) <= Math.ulp(r) * 4 ? n : 0.0;
+    }
+
+    /**
+     * Converts a number of steps back to the value.
+     */
+    double decode(long steps) {
+        return scale != 0 ? steps / scale : steps * resolution;
+    }
+
+    /**
+     * Sends the value as 32 bit float, which gives about 7 significant
+     * digits.
+     *
+     * @return Precision description
+     */
+    public static WirePrecision float32() {
+        return FLOAT32_PRECISION;
+    }
+
+    /**
+     * Sends the value as a 32 bit integer multiple of the resolution.
+     *
+     * @param resolution Smallest step, for example 0.1 for one decimal.
+     * @return Precision description
+     */
+    public static WirePrecision fixed(double resolution) {
+        return new WirePrecision(FIXED, checkResolution(resolution));
+    }
+
+    /**
+     * Sends the difference of the value to the previously sent value as
+     * variable length integer multiple of the resolution.
+     *
+     * @param resolution Smallest step, for example 0.1 for one decimal.
+     * @return Precision description
+     */
+    public static WirePrecision delta(double resolution) {
+        return new WirePrecision(DELTA, checkResolution(resolution));
+    }
+
+    private static double checkResolution(double resolution) {
+        if (!(resolution > 0) || Double.isInfinite(resolution)) {
+            throw new IllegalArgumentException(
+                    "Resolution must be a positive number.");
+        }
+        return resolution;
+    }
+
+    /**
+     * Writes the announcement of this precision for a property.
+     */
+    void writeAnnouncement(DataOutputStream out, String propertyName)
+            throws IOException {
+        out.writeByte(ViewConnection.MSG_PRECISION);
+        out.writeUTF(propertyName);
+        out.writeByte(type);
+        out.writeDouble(resolution);
+    }
+
+    /**
+     * Reads an announcement, the message type was already read.
+     *
+     * @return Channel to decode the following updates of the property.
+     */
+    static Channel readAnnouncement(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        double resolution = in.readDouble();
+        if (type != FLOAT32 && type != FIXED && type != DELTA) {
+            throw new IOException("Unknown wire precision " + type);
+        }
+        return new Channel(new WirePrecision(type, resolution));
+    }
+
+    /**
+     * Holds the state of one property with a precision on one connection.
+     * For delta encoding, both sides keep the last transferred value.
+     */
+    static final class Channel {
+
+        final WirePrecision precision;
+
+        /**
+         * Last transferred value in multiples of the resolution.
+         */
+        long last;
+
+        Channel(WirePrecision precision) {
+            this.precision = precision;
+        }
+
+        /**
+         * Writes an update of the property with the precision of this
+         * channel, or as full double if the value can not be represented.
+         */
+        void write(DataOutputStream out, String propertyName, double value)
+                throws IOException {
+            double resolution = precision.resolution;
+            switch (precision.type) {
+                case FLOAT32:
+                    out.writeByte(ViewConnection.MSG_UPDATE_FLOAT);
+                    out.writeUTF(propertyName);
+                    out.writeFloat((float) value);
+                    return;
+                case FIXED: {
+                    double q = Math.rint(value / resolution);
+                    if (q >= Integer.MIN_VALUE && q <= Integer.MAX_VALUE) {
+                        out.writeByte(ViewConnection.MSG_UPDATE_FIXED);
+                        out.writeUTF(propertyName);
+                        out.writeInt((int) q);
+                        return;
+                    }
+                    break;
+                }
+                case DELTA: {
+                    double q = Math.rint(value / resolution);
+                    // Limited to keep the difference within long range.
+                    if (Math.abs(q) < 0x1p62) {
+                        out.writeByte(ViewConnection.MSG_UPDATE_DELTA);
+                        out.writeUTF(propertyName);
+                        writeVarLong(out, (long) q - last);
+                        last = (long) q;
+                        return;
+                    }
+                    break;
+                }
+            }
+            out.writeByte(ViewConnection.MSG_UPDATE_DOUBLE);
+            out.writeUTF(propertyName);
+            out.writeDouble(value);
+        }
+
+        /**
+         * Reads the value of an update message, the message type and the
+         * property name were already read.
+         */
+        double read(DataInputStream in, byte msgType) throws IOException {
+            switch (msgType) {
+                case ViewConnection.MSG_UPDATE_FLOAT:
+                    return in.readFloat();
+                case ViewConnection.MSG_UPDATE_FIXED:
+                    return precision.decode(in.readInt());
+                default:
+                    last += readVarLong(in);
+                    return precision.decode(last);
+            }
+        }
+    }
+
+    /**
+     * Writes a signed value with zigzag encoding in groups of 7 bits, small
+     * absolute values take less bytes.
+     */
+    static void writeVarLong(DataOutputStream out, long value)
+            throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new IOException("Malformed variable length integer.");
+            }
+            b = in.readByte();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
@@ -27,6 +27,16 @@ package com.hartrusion.util;
  * Provides some very basic convenient functions for working with arrays.
  * <p>
  * It is intended to use a static import to access the provided functions.
+ * <p>
+ * The shift insert functions move the whole array for each value. For long
+ * histories that get a value each cycle, the ring buffer classes like
+ * DoubleRingBuffer provide the same index order with constant time inserts.
+ * Similarly, SlotArray replaces addObject, containsObject and indexOfObject
+ * for arrays with many objects.
+ * <p>
+ * The numeric functions for double arrays like sum, dot or clamp use the
+ * vector API if the JVM was started with
+ * {@code --add-modules jdk.incubator.vector} and plain loops otherwise.
  *
  * @author Viktor Alexander Hartung
  */
@@ -663,4 +673,110 @@ public abstract class ArraysExt {
         return -1;
     }
 
+    /**
+     * Calculates the sum of all values. If the vector API is used, the values
+     * are added in a different order than a simple loop would do, so the
+     * result may differ in the last digits.
+     *
+     * @param array Values to add
+     * @return Sum, 0.0 for an empty array.
+     */
+    public static double sum(double[] array) {
+        return NumericKernels.INSTANCE.sum(array);
+    }
+
+    /**
+     * Multiplies each value of the array with a factor.
+     *
+     * @param target Array which will be modified
+     * @param factor Factor for all values
+     */
+    public static void scale(double[] target, double factor) {
+        NumericKernels.INSTANCE.scale(target, factor);
+    }
+
+    /**
+     * Adds two arrays element by element. The target may be one of the
+     * summands.
+     *
+     * @param target Array which receives the result
+     * @param a First summand
+     * @param b Second summand
+     */
+    public static void add(double[] target, double[] a, double[] b) {
+        checkLength(target, a, b);
+        NumericKernels.INSTANCE.add(target, a, b);
+    }
+
+    /**
+     * Multiplies two arrays element by element, like .* in MATLAB. The target
+     * may be one of the factors.
+     *
+     * @param target Array which receives the result
+     * @param a First factor
+     * @param b Second factor
+     */
+    public static void multiply(double[] target, double[] a, double[] b) {
+        checkLength(target, a, b);
+        NumericKernels.INSTANCE.multiply(target, a, b);
+    }
+
+    /**
+     * Returns the smallest value of the array.
+     *
+     * @param array Values to inspect
+     * @return Smallest value, NaN if any value is NaN, positive infinity for
+     * an empty array.
+     */
+    public static double min(double[] array) {
+        return NumericKernels.INSTANCE.min(array);
+    }
+
+    /**
+     * Returns the largest value of the array.
+     *
+     * @param array Values to inspect
+     * @return Largest value, NaN if any value is NaN, negative infinity for an
+     * empty array.
+     */
+    public static double max(double[] array) {
+        return NumericKernels.INSTANCE.max(array);
+    }
+
+    /**
+     * Calculates the dot product of two arrays of the same length. Like sum,
+     * the result may differ in the last digits depending on the
+     * implementation.
+     *
+     * @param a First array
+     * @param b Second array
+     * @return Sum of the element wise products
+     */
+    public static double dot(double[] a, double[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Array lengths differ.");
+        }
+        return NumericKernels.INSTANCE.dot(a, b);
+    }
+
+    /**
+     * Limits all values of the array to the given range.
+     *
+     * @param target Array which will be modified
+     * @param lower Lowest allowed value
+     * @param upper Highest allowed value
+     */
+    public static void clamp(double[] target, double lower, double upper) {
+        if (lower > upper) {
+            throw new IllegalArgumentException("Lower limit above upper.");
+        }
+        NumericKernels.INSTANCE.clamp(target, lower, upper);
+    }
+
+    private static void checkLength(double[] target, double[] a, double[] b) {
+        if (a.length != target.length || b.length != target.length) {
+            throw new IllegalArgumentException("Array lengths differ.");
+        }
+    }
+
 }
@@ -0,0 +1,297 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A log handler that hands the records over to a background thread, which
+ * publishes them to the target handlers and flushes those once per batch. A
+ * logging thread therefore never waits for console or file output and does
+ * not contend with other logging threads on the lock of a stream handler.
+ * <p>
+ * The records are kept in a lock free queue with a limited number of
+ * entries. If it is full, the overflow policy decides whether a record gets
+ * dropped or the logging thread waits for free space. Dropped records are
+ * counted and reported with a warning once the writer catches up.
+ * <p>
+ * The source class and method of a record are determined from the stack of
+ * the logging thread, so this is done before the record is queued. The
+ * parameters of a message are formatted later on the writer thread.
+ * <p>
+ * Pending records are written when the handler is closed, which the
+ * LogManager does on shutdown, and also by a shutdown hook of this handler.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class AsyncLogHandler extends Handler {
+
+    /**
+     * What to do with a record if the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Discard the record and count it.
+         */
+        DROP,
+        /**
+         * Let the logging thread wait until there is space.
+         */
+        BLOCK
+    }
+
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_WAIT = 100_000_000L;
+    private static final long FLUSH_TIMEOUT = 5_000_000_000L;
+
+    private final Handler[] targets;
+    private final int capacity;
+    private final OverflowPolicy policy;
+
+    private final ConcurrentLinkedQueue<LogRecord> queue
+            = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Number of records queued and number of records the writer has
+     * finished, used to wait for a flush.
+     */
+    private final AtomicLong queued = new AtomicLong();
+    private volatile long processed;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private long droppedReported;
+
+    private final Thread writer;
+    private volatile boolean writerIdle;
+    private volatile boolean closed;
+
+    /**
+     * Flushes on shutdown, removed again when the handler is closed.
+     */
+    private final Thread shutdownHook;
+
+    /**
+     * Creates the handler and starts its writer thread. The targets should
+     * not flush after each record, the writer flushes them after each batch.
+     *
+     * @param capacity Maximum number of queued records
+     * @param policy What to do if the queue is full
+     * @param targets Handlers that receive the records, each applies its own
+     * level and filter.
+     */
+    public AsyncLogHandler(int capacity, OverflowPolicy policy,
+            Handler... targets) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Capacity must be at least 1.");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        this.targets = targets.clone();
+        writer = new Thread(this::writeLoop, "AsyncLogHandler-Writer");
+        writer.setDaemon(true);
+        writer.start();
+        shutdownHook = new Thread(this::flush, "AsyncLogHandler-Shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        if (Thread.currentThread() == writer) {
+            // Logging from within a target handler, waiting for space would
+            // never end.
+            publishToTargets(record);
+            return;
+        }
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                if (policy == OverflowPolicy.DROP || closed) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                wakeWriter();
+                LockSupport.parkNanos(100_000L);
+                continue;
+            }
+        } while (current >= capacity
+                || !size.compareAndSet(current, current + 1));
+        // Infer the caller on this thread, after the space was taken so
+        // dropped records do not pay for walking the stack.
+        record.getSourceClassName();
+        queue.add(record);
+        queued.incrementAndGet();
+        if (writerIdle) {
+            wakeWriter();
+        }
+    }
+
+    private void wakeWriter() {
+        LockSupport.unpark(writer);
+    }
+
+    private void writeLoop() {
+        while (true) {
+            int count = 0;
+            LogRecord record;
+            while (count < BATCH_SIZE && (record = queue.poll()) != null) {
+                size.decrementAndGet();
+                publishToTargets(record);
+                count++;
+            }
+            if (count > 0) {
+                reportDropped();
+                flushTargets();
+                processed += count;
+                continue;
+            }
+            if (closed) {
+                return;
+            }
+            writerIdle = true;
+            if (queue.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_WAIT);
+            }
+            writerIdle = false;
+        }
+    }
+
+    private void publishToTargets(LogRecord record) {
+        for (Handler target : targets) {
+            try {
+                target.publish(record);
+            } catch (RuntimeException e) {
+                reportError("Target handler failed.", e,
+                        ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    private void flushTargets() {
+        for (Handler target : targets) {
+            try {
+                target.flush();
+            } catch (RuntimeException e) {
+                reportError("Flushing target handler failed.", e,
+                        ErrorManager.FLUSH_FAILURE);
+            }
+        }
+    }
+
+    /**
+     * Publishes a warning with the number of records dropped since the last
+     * report, called by the writer thread.
+     */
+    private void reportDropped() {
+        long total = dropped.get();
+        if (total == droppedReported) {
+            return;
+        }
+        LogRecord warning = new LogRecord(Level.WARNING,
+                "{0} log records dropped, the log queue was full.");
+        warning.setParameters(new Object[]{total - droppedReported});
+        warning.setLoggerName(AsyncLogHandler.class.getName());
+        warning.setSourceClassName(AsyncLogHandler.class.getName());
+        droppedReported = total;
+        publishToTargets(warning);
+    }
+
+    /**
+     * Returns the number of records that were dropped because the queue was
+     * full.
+     *
+     * @return Number of dropped records since creation
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of records waiting to be written.
+     *
+     * @return Queue size
+     */
+    public int getQueueSize() {
+        return size.get();
+    }
+
+    /**
+     * Waits until all records queued before this call were written and
+     * flushed, at most five seconds.
+     */
+    @Override
+    public void flush() {
+        if (Thread.currentThread() == writer) {
+            flushTargets();
+            return;
+        }
+        long target = queued.get();
+        long deadline = System.nanoTime() + FLUSH_TIMEOUT;
+        while (processed < target && writer.isAlive()
+                && System.nanoTime() < deadline) {
+            wakeWriter();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Writes all pending records, stops the writer thread and closes the
+     * target handlers.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // closed by the LogManager while shutting down, the hook runs
+        }
+        wakeWriter();
+        try {
+            writer.join(TimeUnit.NANOSECONDS.toMillis(FLUSH_TIMEOUT));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Handler target : targets) {
+            target.close();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * Writes records encoded by the OneLineFormatter into a byte buffer and
+ * writes the buffer to the stream on flush or when it is full. Meant as a
+ * target of the AsyncLogHandler, which flushes after each batch. Closing it
+ * does not close the stream.
+ */
+class BatchedStreamHandler extends Handler {
+
+    private static final int WRITE_SIZE = 65536;
+
+    private final PrintStream stream;
+    private final OneLineFormatter formatter = new OneLineFormatter();
+    private ByteBuffer buffer = ByteBuffer.allocate(WRITE_SIZE);
+
+    BatchedStreamHandler(PrintStream stream) {
+        this.stream = stream;
+        setFormatter(formatter);
+    }
+
+    @Override
+    public synchronized void publish(LogRecord record) {
+        if (!isLoggable(record)) {
+            return;
+        }
+        try {
+            buffer = formatter.encode(record, buffer);
+        } catch (RuntimeException e) {
+            reportError(null, e, ErrorManager.FORMAT_FAILURE);
+            return;
+        }
+        if (buffer.position() >= WRITE_SIZE) {
+            writeBuffer();
+        }
+    }
+
+    private void writeBuffer() {
+        stream.write(buffer.array(), 0, buffer.position());
+        if (buffer.capacity() > 16 * WRITE_SIZE) {
+            buffer = ByteBuffer.allocate(WRITE_SIZE);
+        } else {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        writeBuffer();
+        stream.flush();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes numbers and strings of the binary log format. Numbers are written
+ * as variable length integers with 7 bits per byte. Strings are written as
+ * their UTF-8 length plus one, 0 for null, followed by the UTF-8 bytes. The
+ * encoding is done directly into the buffer without creating byte arrays.
+ *
+ * @author Viktor Alexander Hartung
+ */
+final class BinaryLogCodec {
+
+    private static final byte PARAM_NULL = 0;
+    private static final byte PARAM_STRING = 1;
+    private static final byte PARAM_LONG = 2;
+    private static final byte PARAM_DOUBLE = 3;
+
+    private BinaryLogCodec() {
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed number in binary log.");
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.put((byte) 0);
+            return;
+        }
+        int length = value.length();
+        int bytes = 0;
+        for (int idx = 0; idx < length; idx++) {
+            char c = value.charAt(idx);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && idx + 1 < length
+                    && Character.isLowSurrogate(value.charAt(idx + 1))) {
+                bytes += 4;
+                idx++;
+            } else if (Character.isSurrogate(c)) {
+                bytes++; // unpaired, written as '?'
+            } else {
+                bytes += 3;
+            }
+        }
+        putVarLong(buffer, bytes + 1L);
+        if (bytes > buffer.remaining()) {
+            throw new BufferOverflowException();
+        }
+        for (int idx = 0; idx < length; idx++) {
+            char c = value.charAt(idx);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && idx + 1 < length
+                    && Character.isLowSurrogate(value.charAt(idx + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++idx));
+                buffer.put((byte) (0xF0 | (cp >> 18)));
+                buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (cp & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /**
+     * Writes a message parameter. Integer numbers and floating point numbers
+     * keep their type so they are formatted the same way when reading, all
+     * other objects are written as their string.
+     */
+    static void putParameter(ByteBuffer buffer, Object value) {
+        if (value == null) {
+            buffer.put(PARAM_NULL);
+        } else if (value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte) {
+            buffer.put(PARAM_LONG);
+            buffer.putLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            buffer.put(PARAM_DOUBLE);
+            buffer.putDouble(((Number) value).doubleValue());
+        } else {
+            buffer.put(PARAM_STRING);
+            putString(buffer, value.toString());
+        }
+    }
+
+    static Object getParameter(ByteBuffer buffer) {
+        byte type = buffer.get();
+        switch (type) {
+            case PARAM_NULL:
+                return null;
+            case PARAM_LONG:
+                return buffer.getLong();
+            case PARAM_DOUBLE:
+                return buffer.getDouble();
+            case PARAM_STRING:
+                return getString(buffer);
+            default:
+                throw new IllegalStateException(
+                        "Unknown parameter type in binary log.");
+        }
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = (int) getVarLong(buffer);
+        if (length == 0) {
+            return null;
+        }
+        length--;
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(),
+                    buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(buffer.position(), bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * Writes log records in a compact binary format into memory mapped segment
+ * files. Appending a record only copies bytes into the mapping, the
+ * operating system writes them to the file in the background. Records are
+ * not lost if the program crashes, only if the whole system does.
+ * <p>
+ * A new segment is started when the current one is full or older than the
+ * segment duration. Segments are named basename-000001.blog and so on in the
+ * given directory, numbering continues after existing segments. Optionally
+ * only a number of the newest segments is kept. Message parameters are
+ * stored as numbers or strings and only formatted when reading. Names of
+ * loggers, classes and methods are stored once per segment and referenced by
+ * number after that. Use BinaryLogReader to convert segments to text.
+ * <p>
+ * A record that does not fit into an empty segment is written shortened:
+ * long strings are cut and end with "...", only a few parameters and stack
+ * frames are kept. If that is still too large, it is written without
+ * parameters and stack trace.
+ * <p>
+ * Flushing does nothing, as forcing the mapping to the disk would cost more
+ * than the writing itself. Closing the handler forces the current segment
+ * and truncates it to its used size.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class BinaryLogHandler extends Handler {
+
+    static final int MAGIC = 0x48424C47; // "HBLG"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final String SUFFIX = ".blog";
+
+    /**
+     * Number of parameters and stack frames kept of a shortened record.
+     */
+    private static final int SHORTENED_ITEMS = 16;
+
+    private final Path directory;
+    private final String baseName;
+    private final int segmentSize;
+    private final long segmentDuration;
+    private final int maxSegments;
+
+    private int sequence;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentStart;
+
+    /**
+     * Strings of the current segment that can be referenced by number.
+     */
+    private final ObjectIntMap<String> dictionary = new ObjectIntMap<>();
+
+    /**
+     * Strings added to the dictionary by the record being appended, they are
+     * removed again if the record does not fit.
+     */
+    private final List<String> addedNames = new ArrayList<>();
+
+    private boolean closed;
+
+    /**
+     * Creates the handler, the first segment is created with the first
+     * record.
+     *
+     * @param directory Directory for the segment files, created if missing
+     * @param baseName Start of the segment file names
+     * @param segmentSize Size of a segment file in bytes
+     * @param segmentDuration Maximum time span of a segment in milliseconds,
+     * 0 for no limit.
+     * @param maxSegments Number of segments to keep, older ones are deleted,
+     * 0 keeps all.
+     * @throws IOException If the directory can not be read or created
+     */
+    public BinaryLogHandler(Path directory, String baseName, int segmentSize,
+            long segmentDuration, int maxSegments) throws IOException {
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("Segment size too small.");
+        }
+        this.directory = directory;
+        this.baseName = baseName;
+        this.segmentSize = segmentSize;
+        this.segmentDuration = segmentDuration;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        List<Path> existing = segments(directory, baseName);
+        if (!existing.isEmpty()) {
+            sequence = sequenceOf(existing.get(existing.size() - 1),
+                    baseName);
+        }
+    }
+
+    /**
+     * Returns the segment files of a base name sorted by their number.
+     */
+    static List<Path> segments(Path directory, String baseName)
+            throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(
+                directory, baseName + "-*" + SUFFIX)) {
+            for (Path file : stream) {
+                if (sequenceOf(file, baseName) > 0) {
+                    files.add(file);
+                }
+            }
+        }
+        // Numbers have a fixed number of digits, names sort like numbers.
+        Collections.sort(files);
+        return files;
+    }
+
+    private static int sequenceOf(Path file, String baseName) {
+        String name = file.getFileName().toString();
+        String number = name.substring(baseName.length() + 1,
+                name.length() - SUFFIX.length());
+        try {
+            return Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        try {
+            if (segment == null || (segmentDuration > 0
+                    && record.getMillis() - segmentStart >= segmentDuration)) {
+                roll(record.getMillis());
+            }
+            if (!append(record, Integer.MAX_VALUE, Integer.MAX_VALUE)) {
+                roll(record.getMillis());
+                int maxChars = (segmentSize - HEADER_SIZE) / 16;
+                if (!append(record, Integer.MAX_VALUE, Integer.MAX_VALUE)
+                        && !append(record, maxChars, SHORTENED_ITEMS)
+                        && !append(record, maxChars, 0)) {
+                    reportError("Record larger than a segment.", null,
+                            ErrorManager.WRITE_FAILURE);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            reportError("Writing binary log failed.", e,
+                    ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    /**
+     * Encodes the record into the segment.
+     *
+     * @param maxChars Longer strings are cut, except names
+     * @param maxItems Maximum number of parameters and of stack frames
+     * @return false if it did not fit, the segment and the dictionary are
+     * unchanged then.
+     */
+    private boolean append(LogRecord record, int maxChars, int maxItems) {
+        int start = segment.position();
+        addedNames.clear();
+        try {
+            segment.putInt(0); // length, written after the record
+            segment.putLong(record.getMillis());
+            segment.putInt(record.getLevel().intValue());
+            putName(record.getLevel().getName());
+            BinaryLogCodec.putVarLong(segment, record.getLongThreadID());
+            putName(record.getLoggerName());
+            putName(record.getSourceClassName());
+            putName(record.getSourceMethodName());
+            BinaryLogCodec.putString(segment,
+                    shorten(record.getMessage(), maxChars));
+            Object[] parameters = record.getParameters();
+            int count = parameters == null ? 0
+                    : Math.min(parameters.length, maxItems);
+            BinaryLogCodec.putVarLong(segment, count);
+            for (int idx = 0; idx < count; idx++) {
+                Object parameter = parameters[idx];
+                if (maxChars != Integer.MAX_VALUE && parameter != null
+                        && !(parameter instanceof Number)) {
+                    parameter = shorten(parameter.toString(), maxChars);
+                }
+                BinaryLogCodec.putParameter(segment, parameter);
+            }
+            Throwable thrown = record.getThrown();
+            if (thrown == null) {
+                segment.put((byte) 0);
+            } else {
+                segment.put((byte) 1);
+                BinaryLogCodec.putString(segment,
+                        shorten(thrown.toString(), maxChars));
+                StackTraceElement[] trace = thrown.getStackTrace();
+                int frames = Math.min(trace.length, maxItems);
+                BinaryLogCodec.putVarLong(segment, frames);
+                for (int idx = 0; idx < frames; idx++) {
+                    StackTraceElement e = trace[idx];
+                    putName(e.getClassName());
+                    putName(e.getMethodName());
+                    putName(e.getFileName());
+                    BinaryLogCodec.putVarLong(segment, e.getLineNumber());
+                }
+            }
+            // Room for the length field of the next record, which is 0 and
+            // marks the end of the segment.
+            if (segment.remaining() < 4) {
+                throw new BufferOverflowException();
+            }
+        } catch (BufferOverflowException e) {
+            // Later records must not reference names that were not written.
+            for (String name : addedNames) {
+                dictionary.remove(name);
+            }
+            segment.position(start);
+            return false;
+        }
+        segment.putInt(start, segment.position() - start - 4);
+        return true;
+    }
+
+    /**
+     * Writes a string by its dictionary number, followed by the string
+     * itself the first time it is used in this segment.
+     */
+    private void putName(String name) {
+        if (name == null) {
+            BinaryLogCodec.putVarLong(segment, 0);
+            return;
+        }
+        int id = dictionary.get(name);
+        if (id != 0) {
+            BinaryLogCodec.putVarLong(segment, id);
+            return;
+        }
+        id = dictionary.size() + 1;
+        dictionary.put(name, id);
+        addedNames.add(name);
+        BinaryLogCodec.putVarLong(segment, id);
+        BinaryLogCodec.putString(segment, name);
+    }
+
+    /**
+     * Cuts a string to the given length, marking it with "...".
+     */
+    private static String shorten(String value, int maxChars) {
+        if (value == null || value.length() <= maxChars) {
+            return value;
+        }
+        int end = maxChars;
+        if (Character.isHighSurrogate(value.charAt(end - 1))) {
+            end--; // keep pairs together
+        }
+        return value.substring(0, end) + "...";
+    }
+
+    /**
+     * Finishes the current segment and starts a new one.
+     */
+    private void roll(long millis) throws IOException {
+        // The operating system writes the finished segment in the
+        // background, forcing it would stall the logging thread.
+        finishSegment(false);
+        sequence++;
+        Path file = directory.resolve(String.format("%s-%06d%s", baseName,
+                sequence, SUFFIX));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                segmentSize);
+        segment.putInt(MAGIC);
+        segment.putShort(VERSION);
+        segment.putLong(millis);
+        segment.position(HEADER_SIZE);
+        segmentStart = millis;
+        dictionary.clear();
+        deleteOldSegments();
+    }
+
+    private void finishSegment(boolean force) throws IOException {
+        if (segment == null) {
+            return;
+        }
+        int used = segment.position();
+        if (force) {
+            segment.force();
+        }
+        segment = null;
+        try {
+            channel.truncate(used + 4); // keep the end marker
+        } catch (IOException e) {
+            // Some systems do not allow truncating a mapped file, the rest
+            // of the segment is zero and read as end.
+        }
+        channel.close();
+        channel = null;
+    }
+
+    private void deleteOldSegments() throws IOException {
+        if (maxSegments <= 0) {
+            return;
+        }
+        List<Path> files = segments(directory, baseName);
+        for (int idx = 0; idx < files.size() - maxSegments; idx++) {
+            Files.deleteIfExists(files.get(idx));
+        }
+    }
+
+    /**
+     * Does nothing, the operating system writes the mapped segment.
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Forces the current segment to the disk and truncates it.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            finishSegment(true);
+        } catch (IOException e) {
+            reportError("Closing binary log failed.", e,
+                    ErrorManager.CLOSE_FAILURE);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Reads the segment files written by BinaryLogHandler. The records are
+ * returned as LogRecord objects, their parameters are numbers or strings and
+ * their thrown exception only contains the text and stack trace of the original
+ * one, without causes.
+ * <p>
+ * Running this class prints segments in the one line text format of
+ * SimpleLogOut. Arguments are segment files or directories, all segments in
+ * a directory are printed in the order of their numbers.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class BinaryLogReader implements Closeable {
+
+    /**
+     * Stands in for the exception of a record.
+     */
+    private static class RecordedThrowable extends Throwable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String text;
+
+        RecordedThrowable(String text, StackTraceElement[] trace) {
+            super(text, null, false, true);
+            this.text = text;
+            setStackTrace(trace);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final long segmentStart;
+    private final List<String> dictionary = new ArrayList<>();
+
+    /**
+     * Opens a segment file.
+     *
+     * @param file Segment file
+     * @throws IOException If the file can not be read or is no segment.
+     */
+    public BinaryLogReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+            if (buffer.limit() < BinaryLogHandler.HEADER_SIZE
+                    || buffer.getInt() != BinaryLogHandler.MAGIC) {
+                throw new IOException("Not a binary log segment: " + file);
+            }
+            if (buffer.getShort() != BinaryLogHandler.VERSION) {
+                throw new IOException("Unsupported segment version: " + file);
+            }
+            segmentStart = buffer.getLong();
+            buffer.position(BinaryLogHandler.HEADER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the time the segment was started.
+     *
+     * @return Milliseconds since epoch
+     */
+    public long getSegmentStart() {
+        return segmentStart;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return The record or null at the end of the segment.
+     * @throws IOException If the segment is damaged
+     */
+    public LogRecord read() throws IOException {
+        if (buffer.remaining() < 4) {
+            return null;
+        }
+        int length = buffer.getInt();
+        if (length == 0) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Damaged record at "
+                    + (buffer.position() - 4));
+        }
+        int end = buffer.position() + length;
+        try {
+            long millis = buffer.getLong();
+            int levelValue = buffer.getInt();
+            String levelName = getName();
+            LogRecord record = new LogRecord(level(levelName, levelValue),
+                    null);
+            record.setInstant(Instant.ofEpochMilli(millis));
+            record.setLongThreadID(BinaryLogCodec.getVarLong(buffer));
+            record.setLoggerName(getName());
+            record.setSourceClassName(getName());
+            record.setSourceMethodName(getName());
+            record.setMessage(BinaryLogCodec.getString(buffer));
+            int count = (int) BinaryLogCodec.getVarLong(buffer);
+            if (count > 0) {
+                Object[] parameters = new Object[count];
+                for (int idx = 0; idx < count; idx++) {
+                    parameters[idx] = BinaryLogCodec.getParameter(buffer);
+                }
+                record.setParameters(parameters);
+            }
+            if (buffer.get() != 0) {
+                String text = BinaryLogCodec.getString(buffer);
+                int frames = (int) BinaryLogCodec.getVarLong(buffer);
+                StackTraceElement[] trace = new StackTraceElement[frames];
+                for (int idx = 0; idx < trace.length; idx++) {
+                    String className = getName();
+                    String methodName = getName();
+                    String fileName = getName();
+                    int line = (int) BinaryLogCodec.getVarLong(buffer);
+                    trace[idx] = new StackTraceElement(className, methodName,
+                            fileName, line);
+                }
+                record.setThrown(new RecordedThrowable(text, trace));
+            }
+            if (buffer.position() != end) {
+                throw new IOException("Damaged record at " + (end - length));
+            }
+            return record;
+        } catch (RuntimeException e) {
+            throw new IOException("Damaged record at " + (end - length), e);
+        }
+    }
+
+    private String getName() throws IOException {
+        int id = (int) BinaryLogCodec.getVarLong(buffer);
+        if (id == 0) {
+            return null;
+        }
+        if (id <= dictionary.size()) {
+            return dictionary.get(id - 1);
+        }
+        if (id != dictionary.size() + 1) {
+            throw new IOException("Unknown name reference " + id);
+        }
+        String name = BinaryLogCodec.getString(buffer);
+        dictionary.add(name);
+        return name;
+    }
+
+    private static Level level(String name, int value) {
+        try {
+            return Level.parse(name);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            // Custom level which is not known in this program.
+            return Level.parse(Integer.toString(value));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Prints all records of a segment in the one line text format.
+     *
+     * @param file Segment file
+     * @param out Receives the text
+     * @throws IOException If the segment can not be read
+     */
+    public static void print(Path file, PrintStream out) throws IOException {
+        OneLineFormatter formatter = new OneLineFormatter();
+        StringBuilder sb = new StringBuilder();
+        try (BinaryLogReader reader = new BinaryLogReader(file)) {
+            LogRecord record;
+            while ((record = reader.read()) != null) {
+                sb.setLength(0);
+                formatter.formatTo(record, sb);
+                out.append(sb);
+            }
+        }
+    }
+
+    /**
+     * Prints segment files or all segments in directories.
+     *
+     * @param args Files and directories
+     * @throws IOException If a segment can not be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: BinaryLogReader file|directory...");
+            return;
+        }
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (!Files.isDirectory(path)) {
+                print(path, System.out);
+                continue;
+            }
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path,
+                    "*" + BinaryLogHandler.SUFFIX)) {
+                stream.forEach(files::add);
+            }
+            // Sorts by base name first, then by segment number.
+            files.sort(null);
+            for (Path file : files) {
+                print(file, System.out);
+            }
+        }
+        System.out.flush();
+    }
+}
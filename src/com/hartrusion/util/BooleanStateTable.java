@@ -0,0 +1,329 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A table of named boolean signals packed into the bits of long words. Each
+ * name is interned once to an index, after that the signals can be set and
+ * read by index without any lookup.
+ * <p>
+ * The table keeps the state of the last publish next to the current state.
+ * Changes are found by comparing both states word by word with XOR, so
+ * thousands of signals are checked with a few dozen operations and only the
+ * changed bits are visited. A signal that was added since the last publish
+ * counts as changed, so a receiver also learns about signals that are still
+ * false.
+ * <p>
+ * The changed words can be written to a stream and applied to a table on the
+ * other side, which then reports the same changes. Both tables must have
+ * interned the same names in the same order.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class BooleanStateTable {
+
+    /**
+     * Receives a changed signal.
+     */
+    public interface ChangeConsumer {
+
+        void accept(int index, boolean value);
+    }
+
+    private final ObjectIntMap<String> indices = new ObjectIntMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    private long[] current = new long[1];
+    private long[] published = new long[1];
+
+    /**
+     * Bits of signals that have to be reported as changed on the next
+     * publish even if their value equals the published one.
+     */
+    private long[] forced = new long[1];
+
+    /**
+     * Returns the index of a signal, adding it if it is not known yet. A new
+     * signal is false and counts as changed until the next publish.
+     *
+     * @param name Name of the signal
+     * @return Index of the signal
+     */
+    public int intern(String name) {
+        int index = indices.getOrDefault(name, -1);
+        if (index >= 0) {
+            return index;
+        }
+        index = names.size();
+        names.add(name);
+        indices.put(name, index);
+        int word = index >>> 6;
+        if (word == current.length) {
+            int length = current.length * 2;
+            current = Arrays.copyOf(current, length);
+            published = Arrays.copyOf(published, length);
+            forced = Arrays.copyOf(forced, length);
+        }
+        forced[word] |= 1L << index;
+        return index;
+    }
+
+    /**
+     * Returns the index of a signal without adding it.
+     *
+     * @param name Name of the signal
+     * @return Index or -1 if the name was never interned
+     */
+    public int indexOf(String name) {
+        return indices.getOrDefault(name, -1);
+    }
+
+    public String getName(int index) {
+        return names.get(index);
+    }
+
+    /**
+     * Returns the number of interned signals.
+     *
+     * @return Number of signals
+     */
+    public int size() {
+        return names.size();
+    }
+
+    public boolean get(int index) {
+        checkIndex(index);
+        return (current[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the current value of a signal.
+     *
+     * @param name Name of the signal
+     * @return Value, false if the signal is not known
+     */
+    public boolean get(String name) {
+        int index = indexOf(name);
+        return index >= 0 && get(index);
+    }
+
+    public void set(int index, boolean value) {
+        checkIndex(index);
+        if (value) {
+            current[index >>> 6] |= 1L << index;
+        } else {
+            current[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Sets a signal, interning its name if it is new.
+     *
+     * @param name Name of the signal
+     * @param value New value
+     */
+    public void set(String name, boolean value) {
+        set(intern(name), value);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= names.size()) {
+            throw new IndexOutOfBoundsException("Index " + index
+                    + " out of bounds for size " + names.size());
+        }
+    }
+
+    private int usedWords() {
+        return (names.size() + 63) >>> 6;
+    }
+
+    private long changes(int word) {
+        return (current[word] ^ published[word]) | forced[word];
+    }
+
+    /**
+     * Checks if any signal changed since the last publish.
+     *
+     * @return true if there are changes
+     */
+    public boolean hasChanges() {
+        for (int word = 0; word < usedWords(); word++) {
+            if (changes(word) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the signals that changed since the last publish.
+     *
+     * @return Number of changed signals
+     */
+    public int countChanges() {
+        int count = 0;
+        for (int word = 0; word < usedWords(); word++) {
+            count += Long.bitCount(changes(word));
+        }
+        return count;
+    }
+
+    /**
+     * Calls the consumer for each signal that changed since the last
+     * publish, in the order of the indices. Only words with changes are
+     * inspected bit by bit.
+     *
+     * @param consumer Receives index and current value of each change
+     */
+    public void forEachChange(ChangeConsumer consumer) {
+        for (int word = 0; word < usedWords(); word++) {
+            long changed = changes(word);
+            while (changed != 0) {
+                int bit = Long.numberOfTrailingZeros(changed);
+                changed &= changed - 1;
+                consumer.accept((word << 6) | bit,
+                        (current[word] & (1L << bit)) != 0);
+            }
+        }
+    }
+
+    /**
+     * Makes the current state the published one, after this there are no
+     * changes.
+     */
+    public void publish() {
+        int used = usedWords();
+        System.arraycopy(current, 0, published, 0, used);
+        Arrays.fill(forced, 0, used, 0L);
+    }
+
+    /**
+     * Returns the words with the current state. Bit n of word n / 64 is the
+     * signal with index n. The array must not be modified and gets replaced
+     * when signals are added.
+     *
+     * @return Words of the current state
+     */
+    public long[] getWords() {
+        return current;
+    }
+
+    /**
+     * Writes all words that contain changes since the last publish. The
+     * format is the number of words followed by the distance to the previous
+     * word index and the current value of each word, counts and distances as
+     * unsigned variable length numbers.
+     *
+     * @param out Stream to write to
+     * @throws IOException If writing fails
+     */
+    public void writeChanges(DataOutput out) throws IOException {
+        int count = 0;
+        for (int word = 0; word < usedWords(); word++) {
+            if (changes(word) != 0) {
+                count++;
+            }
+        }
+        writeVarInt(out, count);
+        int previous = -1;
+        for (int word = 0; word < usedWords(); word++) {
+            if (changes(word) != 0) {
+                writeVarInt(out, word - previous - 1);
+                out.writeLong(current[word]);
+                previous = word;
+            }
+        }
+    }
+
+    /**
+     * Writes all words of the current state in the same format as
+     * writeChanges.
+     *
+     * @param out Stream to write to
+     * @throws IOException If writing fails
+     */
+    public void writeAll(DataOutput out) throws IOException {
+        writeVarInt(out, usedWords());
+        for (int word = 0; word < usedWords(); word++) {
+            writeVarInt(out, 0);
+            out.writeLong(current[word]);
+        }
+    }
+
+    /**
+     * Reads words written by writeChanges or writeAll into the current
+     * state. The changes can then be processed with forEachChange and
+     * publish.
+     *
+     * @param in Stream to read from
+     * @throws IOException If reading fails or a word is not in the table
+     */
+    public void readChanges(DataInput in) throws IOException {
+        int count = readVarInt(in);
+        int word = -1;
+        for (int idx = 0; idx < count; idx++) {
+            word += readVarInt(in) + 1;
+            long value = in.readLong();
+            if (word >= usedWords()) {
+                throw new IOException("Word " + word + " exceeds the table.");
+            }
+            current[word] = value;
+        }
+        // Bits of signals that are not interned here stay clear.
+        int unused = usedWords() * 64 - names.size();
+        if (unused > 0) {
+            current[usedWords() - 1] &= -1L >>> unused;
+        }
+    }
+
+    private static void writeVarInt(DataOutput out, int value)
+            throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length number.");
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * A history of double values with a fixed capacity. Pushing a value takes
+ * constant time, the index order is the same as with
+ * {@link ArraysExt#leftShiftInsert(double[], double)}: index 0 is the value that
+ * was pushed last, the highest index the oldest one. Indices that were never
+ * written return 0.0, like a new array would.
+ * <p>
+ * The values are stored in reverse order of pushing, starting at a moving
+ * head index. This allows copying the history into a plain array, newest
+ * value first, with at most two calls of System.arraycopy.
+ * <p>
+ * A buffer created as concurrent may be written by a single thread and read
+ * by any number of other threads at the same time, without locks. Readers
+ * check a sequence number that the writer increments before and after each
+ * modification and repeat the read if it changed. This allows for example the
+ * event dispatch thread to copy a trend history while the model keeps
+ * pushing values. A buffer that is not concurrent must not be shared.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class DoubleRingBuffer {
+
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(
+                    DoubleRingBuffer.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final double[] data;
+    private final boolean concurrent;
+
+    /**
+     * Index of the newest value in data.
+     */
+    private int head;
+
+    /**
+     * Number of values pushed, limited to the capacity.
+     */
+    private int size;
+
+    /**
+     * Odd while the writer modifies the buffer. Only used if concurrent.
+     */
+    private long sequence;
+
+    /**
+     * Creates a buffer that must not be shared between threads.
+     *
+     * @param capacity Number of values that are kept
+     */
+    public DoubleRingBuffer(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Creates a new buffer.
+     *
+     * @param capacity Number of values that are kept
+     * @param concurrent true to allow reading from other threads while a
+     * single thread is writing.
+     */
+    public DoubleRingBuffer(int capacity, boolean concurrent) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Capacity must be at least 1.");
+        }
+        data = new double[capacity];
+        this.concurrent = concurrent;
+    }
+
+    private void beginWrite() {
+        if (concurrent) {
+            SEQUENCE.setOpaque(this, sequence + 1);
+            VarHandle.storeStoreFence();
+        }
+    }
+
+    private void endWrite() {
+        if (concurrent) {
+            SEQUENCE.setRelease(this, sequence + 1);
+        }
+    }
+
+    /**
+     * Returns the sequence to validate a read with, spinning while a write
+     * is in progress.
+     */
+    private long beginRead() {
+        long s;
+        while (((s = (long) SEQUENCE.getAcquire(this)) & 1) != 0) {
+            Thread.onSpinWait();
+        }
+        return s;
+    }
+
+    private boolean validate(long s) {
+        VarHandle.loadLoadFence();
+        return (long) SEQUENCE.getOpaque(this) == s;
+    }
+
+    /**
+     * Inserts a value at index 0, all other values move to the next higher
+     * index and the oldest value gets lost if the buffer is full.
+     *
+     * @param value Value to insert
+     */
+    public void push(double value) {
+        beginWrite();
+        int h = head - 1;
+        if (h < 0) {
+            h = data.length - 1;
+        }
+        data[h] = value;
+        head = h;
+        if (size < data.length) {
+            size++;
+        }
+        endWrite();
+    }
+
+    /**
+     * Returns a value by its age.
+     *
+     * @param index 0 for the newest value, up to capacity - 1
+     * @return The value
+     */
+    public double get(int index) {
+        if (index < 0 || index >= data.length) {
+            throw new IndexOutOfBoundsException("Index " + index
+                    + " out of bounds for capacity " + data.length);
+        }
+        if (!concurrent) {
+            return data[physical(head, index)];
+        }
+        double value;
+        long s;
+        do {
+            s = beginRead();
+            value = data[physical(head, index)];
+        } while (!validate(s));
+        return value;
+    }
+
+    private int physical(int h, int index) {
+        int idx = h + index;
+        return idx >= data.length ? idx - data.length : idx;
+    }
+
+    /**
+     * Copies the values into the given array, newest value at index 0, in
+     * the same order as an array maintained with leftShiftInsert.
+     *
+     * @param target Receives min(target.length, capacity) values
+     */
+    public void copyTo(double[] target) {
+        copyTo(target, Math.min(target.length, data.length));
+    }
+
+    /**
+     * Copies the newest values into the given array, newest value at index 0.
+     *
+     * @param target Array to copy to
+     * @param length Number of values, at most the capacity
+     */
+    public void copyTo(double[] target, int length) {
+        if (length < 0 || length > data.length) {
+            throw new IndexOutOfBoundsException("Invalid length " + length);
+        }
+        if (!concurrent) {
+            copy(head, target, length);
+            return;
+        }
+        long s;
+        do {
+            s = beginRead();
+            copy(head, target, length);
+        } while (!validate(s));
+    }
+
+    private void copy(int h, double[] target, int length) {
+        int first = Math.min(length, data.length - h);
+        System.arraycopy(data, h, target, 0, first);
+        if (first < length) {
+            System.arraycopy(data, 0, target, first, length - first);
+        }
+    }
+
+    /**
+     * Returns a copy of all values, newest value at index 0.
+     *
+     * @return New array with capacity elements
+     */
+    public double[] toArray() {
+        double[] result = new double[data.length];
+        copyTo(result);
+        return result;
+    }
+
+    /**
+     * Sets all values to 0.0. Must only be called by the writing thread.
+     */
+    public void clear() {
+        beginWrite();
+        Arrays.fill(data, 0.0);
+        head = 0;
+        size = 0;
+        endWrite();
+    }
+
+    public int capacity() {
+        return data.length;
+    }
+
+    /**
+     * Returns the number of values pushed since creation or the last clear,
+     * limited to the capacity.
+     *
+     * @return Number of values that were written
+     */
+    public int size() {
+        if (!concurrent) {
+            return size;
+        }
+        int result;
+        long s;
+        do {
+            s = beginRead();
+            result = size;
+        } while (!validate(s));
+        return result;
+    }
+
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+}
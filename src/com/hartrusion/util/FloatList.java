@@ -0,0 +1,306 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.util.Arrays;
+
+/**
+ * A list of float values that grows as needed, without boxing each value. The
+ * backing array grows by half of its size when it is full, so adding n values
+ * takes O(n) time in total instead of copying the whole array for each value.
+ * <p>
+ * The backing array can be accessed directly with {@link #array()}, for
+ * example to hand a recorded trace to plotting code without copying it. Only
+ * the first {@link #size()} elements are valid.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class FloatList {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private float[] elements;
+    private int size;
+
+    public FloatList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty list.
+     *
+     * @param initialCapacity Number of elements that can be added without
+     * growing the backing array
+     */
+    public FloatList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Negative capacity.");
+        }
+        elements = new float[initialCapacity];
+    }
+
+    /**
+     * Creates a list containing a copy of the given values.
+     *
+     * @param values Initial values
+     */
+    public FloatList(float[] values) {
+        elements = values.clone();
+        size = values.length;
+    }
+
+    /**
+     * Makes sure the backing array can hold the given number of elements.
+     *
+     * @param minCapacity Required capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > elements.length) {
+            grow(minCapacity);
+        }
+    }
+
+    private void grow(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY) {
+            throw new OutOfMemoryError("Required list size too large.");
+        }
+        long newCapacity = Math.max(DEFAULT_CAPACITY,
+                elements.length + (elements.length >> 1));
+        newCapacity = Math.min(Math.max(newCapacity, minCapacity),
+                MAX_CAPACITY);
+        elements = Arrays.copyOf(elements, (int) newCapacity);
+    }
+
+    /**
+     * Reduces the backing array to the size of the list.
+     */
+    public void trimToSize() {
+        if (elements.length != size) {
+            elements = Arrays.copyOf(elements, size);
+        }
+    }
+
+    /**
+     * Appends a value to the end of the list.
+     *
+     * @param value Value to add
+     */
+    public void add(float value) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size++] = value;
+    }
+
+    /**
+     * Inserts a value at the given index, moving the following elements.
+     *
+     * @param index Position of the new value, 0 to size
+     * @param value Value to insert
+     */
+    public void add(int index, float value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index " + index
+                    + " out of bounds for size " + size);
+        }
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+    }
+
+    /**
+     * Appends all values of an array.
+     *
+     * @param values Values to add
+     */
+    public void addAll(float[] values) {
+        addAll(values, 0, values.length);
+    }
+
+    /**
+     * Appends a range of an array.
+     *
+     * @param values Source array
+     * @param offset First index in the source array
+     * @param length Number of values to add
+     */
+    public void addAll(float[] values, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > values.length - length) {
+            throw new IndexOutOfBoundsException("Invalid range.");
+        }
+        ensureCapacity(size + length);
+        System.arraycopy(values, offset, elements, size, length);
+        size += length;
+    }
+
+    /**
+     * Appends all values of another list.
+     *
+     * @param other List with the values to add
+     */
+    public void addAll(FloatList other) {
+        addAll(other.elements, 0, other.size);
+    }
+
+    public float get(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    /**
+     * Replaces the value at the given index.
+     *
+     * @param index Index of the value
+     * @param value New value
+     * @return The previous value
+     */
+    public float set(int index, float value) {
+        checkIndex(index);
+        float old = elements[index];
+        elements[index] = value;
+        return old;
+    }
+
+    /**
+     * Removes the value at the given index, moving the following elements.
+     *
+     * @param index Index of the value
+     * @return The removed value
+     */
+    public float removeAt(int index) {
+        checkIndex(index);
+        float old = elements[index];
+        System.arraycopy(elements, index + 1, elements, index,
+                size - index - 1);
+        size--;
+        return old;
+    }
+
+    /**
+     * Removes the last value.
+     *
+     * @return The removed value
+     */
+    public float removeLast() {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("List is empty.");
+        }
+        return elements[--size];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index
+                    + " out of bounds for size " + size);
+        }
+    }
+
+    /**
+     * Returns the index of the first occurrence of a value.
+     *
+     * @param value Value to search
+     * @return Index or -1 if the value is not contained
+     */
+    public int indexOf(float value) {
+        for (int idx = 0; idx < size; idx++) {
+            if (Float.compare(elements[idx], value) == 0) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all values, the backing array keeps its size.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the backing array without copying it. Only the first size()
+     * elements are valid. The array is replaced when the list grows, so the
+     * reference must not be kept while adding values.
+     *
+     * @return Backing array of this list
+     */
+    public float[] array() {
+        return elements;
+    }
+
+    /**
+     * Returns a copy of the values.
+     *
+     * @return New array with size() elements
+     */
+    public float[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Copies the values into the given array.
+     *
+     * @param target Array with at least size() elements
+     */
+    public void copyTo(float[] target) {
+        System.arraycopy(elements, 0, target, 0, size);
+    }
+
+    /**
+     * Calls the consumer for each value in order.
+     *
+     * @param consumer Receives the values
+     */
+    public void forEach(FloatConsumer consumer) {
+        for (int idx = 0; idx < size; idx++) {
+            consumer.accept(elements[idx]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int idx = 0; idx < size; idx++) {
+            if (idx > 0) {
+                sb.append(", ");
+            }
+            sb.append(elements[idx]);
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts recorded values like latencies in buckets with a logarithmic scale,
+ * similar to a HdrHistogram. Values below 32 get a bucket each, above, each
+ * power of two is divided into 32 buckets. This gives a resolution of about
+ * 3 percent over the whole range of positive long values with a fixed size
+ * of less than 2000 buckets.
+ * <p>
+ * Recording does not lock and does not create objects, it can be done from
+ * any number of threads. Reading percentiles while recording is possible, the
+ * result is then not an exact snapshot but close enough for monitoring.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value, negative values are counted as zero.
+     *
+     * @param value Value to record, for example a latency in nanoseconds.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (magnitude - SUB_BITS));
+        return (magnitude - SUB_BITS + 1) * SUB_COUNT + sub - SUB_COUNT;
+    }
+
+    /**
+     * Returns a value in the middle of the given bucket.
+     */
+    private static long valueOf(int bucket) {
+        if (bucket < 2 * SUB_COUNT) {
+            return bucket;
+        }
+        int magnitude = bucket / SUB_COUNT + SUB_BITS - 1;
+        long sub = bucket % SUB_COUNT + SUB_COUNT;
+        long lower = sub << (magnitude - SUB_BITS);
+        return lower + (1L << (magnitude - SUB_BITS)) / 2;
+    }
+
+    /**
+     * Returns the value below which the given percentage of all recorded
+     * values are.
+     *
+     * @param percentile Percentage between 0 and 100, like 99.9
+     * @return Value or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100.0 * total);
+        rank = Math.max(1, Math.min(total, rank));
+        long seen = 0;
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            seen += counts.get(idx);
+            if (seen >= rank) {
+                return Math.min(valueOf(idx), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0.0 : (double) sum.get() / n;
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            counts.set(idx, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Adds all values recorded by another histogram to this one.
+     *
+     * @param other Histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            long c = other.counts.get(idx);
+            if (c != 0) {
+                counts.addAndGet(idx, c);
+            }
+        }
+        count.addAndGet(other.count.get());
+        sum.addAndGet(other.sum.get());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount()
+                + " mean=" + (long) getMean()
+                + " p50=" + getValueAtPercentile(50)
+                + " p99=" + getValueAtPercentile(99)
+                + " p99.9=" + getValueAtPercentile(99.9)
+                + " max=" + getMax();
+    }
+}
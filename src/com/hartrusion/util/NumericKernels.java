@@ -0,0 +1,123 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+/**
+ * Scalar implementation of the numeric array functions of ArraysExt. The
+ * instance that ArraysExt uses is VectorKernels if the incubator module
+ * jdk.incubator.vector is available at runtime, otherwise this class.
+ * <p>
+ * The vector API is an incubator module that has to be enabled with
+ * {@code --add-modules jdk.incubator.vector} when starting the JVM. Without
+ * it, the VectorKernels class is never loaded and the code runs on any JDK.
+ * VectorKernels is in the source folder src-vector, as compiling it also
+ * needs the module. If it was not compiled, the scalar version is used.
+ * Setting the system property {@code com.hartrusion.util.vector} to false
+ * forces the scalar version.
+ *
+ * @author Viktor Alexander Hartung
+ */
+class NumericKernels {
+
+    static final NumericKernels INSTANCE = load();
+
+    private static NumericKernels load() {
+        if (!Boolean.parseBoolean(
+                System.getProperty("com.hartrusion.util.vector", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector")
+                        .isEmpty()) {
+            return new NumericKernels();
+        }
+        try {
+            return (NumericKernels) Class.forName(
+                    "com.hartrusion.util.VectorKernels")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new NumericKernels();
+        }
+    }
+
+    /**
+     * Returns true if this instance uses the vector API.
+     */
+    boolean isVectorized() {
+        return false;
+    }
+
+    double sum(double[] a) {
+        double sum = 0.0;
+        for (int idx = 0; idx < a.length; idx++) {
+            sum += a[idx];
+        }
+        return sum;
+    }
+
+    void scale(double[] a, double factor) {
+        for (int idx = 0; idx < a.length; idx++) {
+            a[idx] *= factor;
+        }
+    }
+
+    void add(double[] target, double[] a, double[] b) {
+        for (int idx = 0; idx < target.length; idx++) {
+            target[idx] = a[idx] + b[idx];
+        }
+    }
+
+    void multiply(double[] target, double[] a, double[] b) {
+        for (int idx = 0; idx < target.length; idx++) {
+            target[idx] = a[idx] * b[idx];
+        }
+    }
+
+    double min(double[] a) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int idx = 0; idx < a.length; idx++) {
+            min = Math.min(min, a[idx]);
+        }
+        return min;
+    }
+
+    double max(double[] a) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int idx = 0; idx < a.length; idx++) {
+            max = Math.max(max, a[idx]);
+        }
+        return max;
+    }
+
+    double dot(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int idx = 0; idx < a.length; idx++) {
+            sum += a[idx] * b[idx];
+        }
+        return sum;
+    }
+
+    void clamp(double[] a, double lower, double upper) {
+        for (int idx = 0; idx < a.length; idx++) {
+            a[idx] = Math.min(Math.max(a[idx], lower), upper);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.util.Arrays;
+
+/**
+ * Assigns long values to object keys without boxing the values. The entries
+ * are kept in plain arrays using open addressing with linear probing. The hash
+ * of each key is stored next to it, so probing only calls equals for keys
+ * with the same hash and growing the table does not call hashCode again.
+ * Getting and putting values does not create objects, only growing the table
+ * does, which doubles its size.
+ * <p>
+ * Keys must not be null. Removed entries do not leave markers, the following
+ * entries are moved back instead, so the table does not degrade over time.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @param <K> Type of the keys
+ * @author Viktor Alexander Hartung
+ */
+public class ObjectLongMap<K> {
+
+    /**
+     * Receives the entries of the map.
+     *
+     * @param <K> Type of the keys
+     */
+    public interface EntryConsumer<K> {
+
+        void accept(K key, long value);
+    }
+
+    private static final int MIN_CAPACITY = 8;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private Object[] keys;
+    private int[] hashes;
+    private long[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public ObjectLongMap() {
+        this(0);
+    }
+
+    /**
+     * Creates a map that can hold the given number of entries without
+     * growing.
+     *
+     * @param expectedSize Number of entries
+     */
+    public ObjectLongMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Negative size.");
+        }
+        allocate(tableSize(expectedSize));
+    }
+
+    /**
+     * Returns the table size for a number of entries, keeping the load below
+     * two thirds.
+     */
+    private static int tableSize(int entries) {
+        long needed = Math.max(MIN_CAPACITY, entries * 3L / 2 + 1);
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Too many entries.");
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        hashes = new int[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity / 3 * 2;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the index of the key or -1 if it is not contained.
+     */
+    private int find(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        int h = hash(key);
+        int idx = h & mask;
+        Object k;
+        while ((k = keys[idx]) != null) {
+            if (hashes[idx] == h && (k == key || k.equals(key))) {
+                return idx;
+            }
+            idx = (idx + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the key or of the free slot where it would be
+     * inserted.
+     */
+    private int slot(Object key) {
+        if (key == null) {
+            throw new NullPointerException("Key must not be null.");
+        }
+        int h = hash(key);
+        int idx = h & mask;
+        Object k;
+        while ((k = keys[idx]) != null) {
+            if (hashes[idx] == h && (k == key || k.equals(key))) {
+                return idx;
+            }
+            idx = (idx + 1) & mask;
+        }
+        return idx;
+    }
+
+    private void insert(int idx, Object key, long value) {
+        keys[idx] = key;
+        hashes[idx] = hash(key);
+        values[idx] = value;
+        if (++size > resizeAt) {
+            grow();
+        }
+    }
+
+    private void grow() {
+        if (keys.length == MAX_CAPACITY) {
+            throw new IllegalStateException("Map is full.");
+        }
+        Object[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        long[] oldValues = values;
+        allocate(keys.length * 2);
+        for (int old = 0; old < oldKeys.length; old++) {
+            if (oldKeys[old] == null) {
+                continue;
+            }
+            int idx = oldHashes[old] & mask;
+            while (keys[idx] != null) {
+                idx = (idx + 1) & mask;
+            }
+            keys[idx] = oldKeys[old];
+            hashes[idx] = oldHashes[old];
+            values[idx] = oldValues[old];
+        }
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key Key
+     * @return Value or 0L if the key is not contained.
+     */
+    public long get(Object key) {
+        int idx = find(key);
+        return idx < 0 ? 0L : values[idx];
+    }
+
+    /**
+     * Returns the value of a key or a default value.
+     *
+     * @param key Key
+     * @param defaultValue Returned if the key is not contained
+     * @return Value of the key or the default value
+     */
+    public long getOrDefault(Object key, long defaultValue) {
+        int idx = find(key);
+        return idx < 0 ? defaultValue : values[idx];
+    }
+
+    public boolean containsKey(Object key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Sets the value of a key.
+     *
+     * @param key Key, must not be null
+     * @param value Value
+     * @return Previous value or 0L if the key was not contained.
+     */
+    public long put(K key, long value) {
+        int idx = slot(key);
+        if (keys[idx] == null) {
+            insert(idx, key, value);
+            return 0L;
+        }
+        long old = values[idx];
+        values[idx] = value;
+        return old;
+    }
+
+    /**
+     * Adds a value to the value of a key. A key that is not contained yet
+     * starts with 0.
+     *
+     * @param key Key, must not be null
+     * @param delta Value to add
+     * @return The new value
+     */
+    public long addTo(K key, long delta) {
+        int idx = slot(key);
+        if (keys[idx] == null) {
+            insert(idx, key, delta);
+            return delta;
+        }
+        values[idx] += delta;
+        return values[idx];
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key Key
+     * @return Value of the removed key or 0L if it was not contained.
+     */
+    public long remove(Object key) {
+        int gap = find(key);
+        if (gap < 0) {
+            return 0L;
+        }
+        long old = values[gap];
+        // Move following entries back into the gap unless that would put
+        // them before their home slot.
+        int idx = gap;
+        while (true) {
+            idx = (idx + 1) & mask;
+            Object k = keys[idx];
+            if (k == null) {
+                break;
+            }
+            int home = hashes[idx] & mask;
+            if (((idx - home) & mask) >= ((idx - gap) & mask)) {
+                keys[gap] = k;
+                hashes[gap] = hashes[idx];
+                values[gap] = values[idx];
+                gap = idx;
+            }
+        }
+        keys[gap] = null;
+        size--;
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries, the table keeps its size.
+     */
+    public void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+
+    /**
+     * Calls the consumer for each entry, in no particular order. The map
+     * must not be modified while iterating.
+     *
+     * @param consumer Receives key and value of each entry
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super K> consumer) {
+        for (int idx = 0; idx < keys.length; idx++) {
+            if (keys[idx] != null) {
+                consumer.accept((K) keys[idx], values[idx]);
+            }
+        }
+    }
+}
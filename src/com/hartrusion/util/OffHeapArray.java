@@ -0,0 +1,379 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Base class for arrays of primitive values that are stored outside of the
+ * java heap. The values are kept in direct byte buffers, either allocated
+ * anonymously or mapped from a file. Large recordings therefore do not add to
+ * the heap size and the garbage collector does not have to scan or copy them.
+ * <p>
+ * A ByteBuffer can hold at most 2 GiB, so the array is split into chunks of
+ * 128 MiB and indices are of type long. A file backed array starts with a
+ * header that contains the element type and the length, so it can be opened
+ * again later without reading the whole file. Values are stored in little
+ * endian byte order.
+ * <p>
+ * Memory of anonymous arrays and mappings of files are released by the
+ * garbage collector after the buffers become unreachable, which is after
+ * close or resize. The arrays are not thread safe and must not be used after
+ * closing.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public abstract class OffHeapArray implements AutoCloseable {
+
+    static final int CHUNK_SHIFT = 27;
+    static final long CHUNK_BYTES = 1L << CHUNK_SHIFT;
+
+    static final int HEADER_SIZE = 64;
+    static final int MAGIC = 0x48414F41; // "HAOA"
+    static final int VERSION = 1;
+
+    static final int TYPE_DOUBLE = 1;
+    static final int TYPE_LONG = 2;
+
+    private static final int MOVE_BUFFER = 1 << 16;
+
+    private final int type;
+    private final int elementShift;
+
+    /**
+     * Shift and mask to get chunk and position in the chunk from an index.
+     */
+    final int indexShift;
+    final long indexMask;
+
+    /**
+     * File of a mapped array, null for anonymous ones.
+     */
+    private final FileChannel channel;
+
+    ByteBuffer[] chunks = new ByteBuffer[0];
+    private long length;
+
+    /**
+     * Creates an anonymous array, all values are 0.
+     */
+    OffHeapArray(int type, int elementShift, long length) {
+        this.type = type;
+        this.elementShift = elementShift;
+        indexShift = CHUNK_SHIFT - elementShift;
+        indexMask = (1L << indexShift) - 1;
+        channel = null;
+        checkLength(length);
+        remap(length);
+        this.length = length;
+    }
+
+    /**
+     * Creates an array mapped from a file. If create is true, the file will
+     * be created or overwritten, otherwise it is opened and the length is
+     * read from its header.
+     */
+    OffHeapArray(int type, int elementShift, Path file, long length,
+            boolean create) throws IOException {
+        this.type = type;
+        this.elementShift = elementShift;
+        indexShift = CHUNK_SHIFT - elementShift;
+        indexMask = (1L << indexShift) - 1;
+        if (create) {
+            checkLength(length);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } else {
+            channel = FileChannel.open(file, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+        try {
+            if (!create) {
+                length = readHeader();
+            }
+            remap(length);
+            this.length = length;
+            writeHeader();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void checkLength(long length) {
+        if (length < 0 || length > (Long.MAX_VALUE - HEADER_SIZE)
+                >> elementShift) {
+            throw new IllegalArgumentException("Invalid length " + length);
+        }
+    }
+
+    private long readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("File is too short for a header.");
+            }
+        }
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not an off heap array file.");
+        }
+        if (header.getInt(8) != type) {
+            throw new IOException("File contains a different element type.");
+        }
+        long fileLength = header.getLong(16);
+        checkLength(fileLength);
+        if (channel.size() < HEADER_SIZE + (fileLength << elementShift)) {
+            throw new IOException("File is shorter than its header says.");
+        }
+        return fileLength;
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, type);
+        header.putLong(16, length);
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * Creates the chunks for the given length. Chunks that keep their size
+     * are reused, the contents of others are copied (anonymous) or mapped
+     * again from the file.
+     */
+    private void remap(long newLength) {
+        long bytes = newLength << elementShift;
+        int count = (int) ((bytes + CHUNK_BYTES - 1) >>> CHUNK_SHIFT);
+        ByteBuffer[] newChunks = new ByteBuffer[count];
+        for (int idx = 0; idx < count; idx++) {
+            int size = (int) Math.min(CHUNK_BYTES, bytes - idx * CHUNK_BYTES);
+            ByteBuffer old = idx < chunks.length ? chunks[idx] : null;
+            if (old != null && old.capacity() == size) {
+                newChunks[idx] = old;
+                continue;
+            }
+            ByteBuffer chunk;
+            if (channel == null) {
+                chunk = ByteBuffer.allocateDirect(size);
+                if (old != null) {
+                    ByteBuffer src = old.duplicate();
+                    src.clear().limit(Math.min(size, old.capacity()));
+                    chunk.put(src).clear();
+                }
+            } else {
+                try {
+                    chunk = channel.map(FileChannel.MapMode.READ_WRITE,
+                            HEADER_SIZE + idx * CHUNK_BYTES, size);
+                } catch (IOException e) {
+                    throw new IllegalStateException(
+                            "Mapping the array file failed.", e);
+                }
+            }
+            newChunks[idx] = chunk.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        chunks = newChunks;
+        updateViews();
+    }
+
+    /**
+     * Creates the typed views on the chunks after they were changed.
+     */
+    abstract void updateViews();
+
+    /**
+     * Returns the number of elements.
+     *
+     * @return Length of the array
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Returns true if the array is backed by a file.
+     *
+     * @return true if mapped from a file
+     */
+    public boolean isMapped() {
+        return channel != null;
+    }
+
+    /**
+     * Changes the length of the array, like ArraysExt.newArrayLength but
+     * without creating a new object. If the new length is longer, the new
+     * elements are 0, if it is shorter, the values at the end are lost. A
+     * file is not truncated when the array gets shorter.
+     *
+     * @param newLength New number of elements
+     */
+    public void resize(long newLength) {
+        checkLength(newLength);
+        if (newLength == length) {
+            return;
+        }
+        long oldLength = length;
+        remap(newLength);
+        length = newLength;
+        if (newLength > oldLength) {
+            // A file may contain old values behind the previous end.
+            zeroBytes(oldLength << elementShift, newLength << elementShift);
+        }
+        if (channel != null) {
+            try {
+                writeHeader();
+            } catch (IOException e) {
+                throw new IllegalStateException(
+                        "Writing the array file header failed.", e);
+            }
+        }
+    }
+
+    /**
+     * Writes all changes of a mapped array to the file. Does nothing for an
+     * anonymous array.
+     *
+     * @throws IOException If the header could not be written
+     */
+    public void force() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        for (ByteBuffer chunk : chunks) {
+            ((MappedByteBuffer) chunk).force();
+        }
+        writeHeader();
+        channel.force(false);
+    }
+
+    /**
+     * Writes all changes of a mapped array to its file and releases the
+     * buffers.
+     *
+     * @throws IOException If writing to the file fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            try {
+                force();
+            } finally {
+                channel.close();
+            }
+        }
+        chunks = new ByteBuffer[0];
+        updateViews();
+    }
+
+    void checkIndex(long index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index
+                    + " out of bounds for length " + length);
+        }
+    }
+
+    void checkRange(long index, long count) {
+        if (index < 0 || count < 0 || index > length - count) {
+            throw new IndexOutOfBoundsException("Range " + index + " + "
+                    + count + " out of bounds for length " + length);
+        }
+    }
+
+    /**
+     * Copies count elements inside the array, the ranges may overlap.
+     *
+     * @param from Index of the first source element
+     * @param to Index of the first target element
+     * @param count Number of elements
+     */
+    public void copyWithin(long from, long to, long count) {
+        checkRange(from, count);
+        checkRange(to, count);
+        if (from == to || count == 0) {
+            return;
+        }
+        long src = from << elementShift;
+        long dst = to << elementShift;
+        long bytes = count << elementShift;
+        byte[] buffer = new byte[(int) Math.min(MOVE_BUFFER, bytes)];
+        if (dst < src) {
+            for (long done = 0; done < bytes; done += buffer.length) {
+                int len = (int) Math.min(buffer.length, bytes - done);
+                readBytes(src + done, buffer, len);
+                writeBytes(dst + done, buffer, len);
+            }
+        } else {
+            // Move from the end so the source is read before it is
+            // overwritten.
+            for (long left = bytes; left > 0; left -= buffer.length) {
+                int len = (int) Math.min(buffer.length, left);
+                readBytes(src + left - len, buffer, len);
+                writeBytes(dst + left - len, buffer, len);
+            }
+        }
+    }
+
+    private void readBytes(long position, byte[] buffer, int length) {
+        int offset = 0;
+        while (offset < length) {
+            ByteBuffer chunk = chunks[(int) (position >>> CHUNK_SHIFT)];
+            int pos = (int) (position & (CHUNK_BYTES - 1));
+            int len = Math.min(length - offset, chunk.capacity() - pos);
+            chunk.get(pos, buffer, offset, len);
+            offset += len;
+            position += len;
+        }
+    }
+
+    private void writeBytes(long position, byte[] buffer, int length) {
+        int offset = 0;
+        while (offset < length) {
+            ByteBuffer chunk = chunks[(int) (position >>> CHUNK_SHIFT)];
+            int pos = (int) (position & (CHUNK_BYTES - 1));
+            int len = Math.min(length - offset, chunk.capacity() - pos);
+            chunk.put(pos, buffer, offset, len);
+            offset += len;
+            position += len;
+        }
+    }
+
+    private void zeroBytes(long from, long to) {
+        byte[] zeros = new byte[(int) Math.min(MOVE_BUFFER, to - from)];
+        for (long position = from; position < to; position += zeros.length) {
+            writeBytes(position, zeros,
+                    (int) Math.min(zeros.length, to - position));
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Path;
+
+/**
+ * An array of double values outside of the java heap, see OffHeapArray. It can
+ * be anonymous or backed by a file which keeps the values after the program
+ * ends and can be opened again.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public final class OffHeapDoubleArray extends OffHeapArray {
+
+    private DoubleBuffer[] views;
+
+    /**
+     * Creates an anonymous array, all values are 0.
+     *
+     * @param length Number of elements
+     */
+    public OffHeapDoubleArray(long length) {
+        super(TYPE_DOUBLE, 3, length);
+    }
+
+    private OffHeapDoubleArray(Path file, long length, boolean create)
+            throws IOException {
+        super(TYPE_DOUBLE, 3, file, length, create);
+    }
+
+    /**
+     * Creates a new file with the given length, all values are 0. An
+     * existing file will be overwritten.
+     *
+     * @param file Path of the file
+     * @param length Number of elements
+     * @return Array mapped from the file
+     * @throws IOException If the file can not be created
+     */
+    public static OffHeapDoubleArray create(Path file, long length)
+            throws IOException {
+        return new OffHeapDoubleArray(file, length, true);
+    }
+
+    /**
+     * Opens a file that was created with create before.
+     *
+     * @param file Path of the file
+     * @return Array mapped from the file with the values it contains
+     * @throws IOException If the file can not be opened or has a different
+     * format
+     */
+    public static OffHeapDoubleArray open(Path file) throws IOException {
+        return new OffHeapDoubleArray(file, 0, false);
+    }
+
+    @Override
+    void updateViews() {
+        views = new DoubleBuffer[chunks.length];
+        for (int idx = 0; idx < chunks.length; idx++) {
+            views[idx] = chunks[idx].asDoubleBuffer();
+        }
+    }
+
+    public double get(long index) {
+        checkIndex(index);
+        return views[(int) (index >>> indexShift)].get(
+                (int) (index & indexMask));
+    }
+
+    public void set(long index, double value) {
+        checkIndex(index);
+        views[(int) (index >>> indexShift)].put(
+                (int) (index & indexMask), value);
+    }
+
+    /**
+     * Sets all elements to the given value.
+     *
+     * @param value Value for all elements
+     */
+    public void fill(double value) {
+        for (DoubleBuffer view : views) {
+            for (int idx = 0; idx < view.capacity(); idx++) {
+                view.put(idx, value);
+            }
+        }
+    }
+
+    /**
+     * Copies elements into a heap array.
+     *
+     * @param index First element to copy
+     * @param target Array to copy to
+     * @param offset First index in the target array
+     * @param count Number of elements
+     */
+    public void copyTo(long index, double[] target, int offset, int count) {
+        checkRange(index, count);
+        if (offset < 0 || offset > target.length - count) {
+            throw new IndexOutOfBoundsException("Invalid target range.");
+        }
+        while (count > 0) {
+            DoubleBuffer view = views[(int) (index >>> indexShift)];
+            int pos = (int) (index & indexMask);
+            int len = Math.min(count, view.capacity() - pos);
+            view.get(pos, target, offset, len);
+            index += len;
+            offset += len;
+            count -= len;
+        }
+    }
+
+    /**
+     * Copies elements from a heap array into this array.
+     *
+     * @param source Array to copy from
+     * @param offset First index in the source array
+     * @param count Number of elements
+     * @param index First element of this array to write
+     */
+    public void copyFrom(double[] source, int offset, int count, long index) {
+        checkRange(index, count);
+        if (offset < 0 || count < 0 || offset > source.length - count) {
+            throw new IndexOutOfBoundsException("Invalid source range.");
+        }
+        while (count > 0) {
+            DoubleBuffer view = views[(int) (index >>> indexShift)];
+            int pos = (int) (index & indexMask);
+            int len = Math.min(count, view.capacity() - pos);
+            view.put(pos, source, offset, len);
+            index += len;
+            offset += len;
+            count -= len;
+        }
+    }
+
+    /**
+     * Copies all values of a heap array to the beginning of this array.
+     *
+     * @param source Values, at most length() of them
+     */
+    public void copyFrom(double[] source) {
+        copyFrom(source, 0, source.length, 0);
+    }
+
+    /**
+     * Copies the values into a new heap array.
+     *
+     * @return Array with all values
+     */
+    public double[] toArray() {
+        if (length() > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too large for a heap array.");
+        }
+        double[] result = new double[(int) length()];
+        copyTo(0, result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * Inserts a value on index 0 and shifts all other values to the next
+     * higher index, like ArraysExt.leftShiftInsert. The value on the highest
+     * index gets lost.
+     *
+     * @param value Value to insert
+     */
+    public void leftShiftInsert(double value) {
+        if (length() == 0) {
+            return;
+        }
+        copyWithin(0, 1, length() - 1);
+        set(0, value);
+    }
+
+    /**
+     * Inserts a value on the highest index and shifts all other values to
+     * the next lower index, like ArraysExt.rightShiftInsert. The value on
+     * index 0 gets lost.
+     *
+     * @param value Value to insert
+     */
+    public void rightShiftInsert(double value) {
+        if (length() == 0) {
+            return;
+        }
+        copyWithin(1, 0, length() - 1);
+        set(length() - 1, value);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+/**
+ * Formats a record as one line with time, level, simple class name and
+ * message. Used for every record, so it avoids creating objects where
+ * possible: the time of day up to the second is formatted once per second
+ * and only the milliseconds are appended as digits, simple class names are
+ * cached per source class and each thread reuses its own StringBuilder. With
+ * encode, a record can be written to a byte buffer without creating a string.
+ */
+class OneLineFormatter extends Formatter {
+
+    private static final DateTimeFormatter SECOND_FMT
+            = DateTimeFormatter.ofPattern("HH:mm:ss:")
+                    .withZone(ZoneId.systemDefault());
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private static final int MAX_CACHED_NAMES = 1024;
+
+    /**
+     * Builders that grew larger than this, for example by a long stack
+     * trace, are not kept for the next record.
+     */
+    private static final int MAX_BUILDER = 8192;
+
+    /**
+     * Reusable buffers of each thread.
+     */
+    private static final class State {
+
+        StringBuilder builder = new StringBuilder(256);
+        char[] chars = new char[256];
+        CharBuffer charBuffer = CharBuffer.wrap(chars);
+        final CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        StringBuilder builder() {
+            if (builder.capacity() > MAX_BUILDER) {
+                builder = new StringBuilder(256);
+            }
+            builder.setLength(0);
+            return builder;
+        }
+    }
+
+    private static final ThreadLocal<State> STATE
+            = ThreadLocal.withInitial(State::new);
+
+    /**
+     * Formatted time of day for one second, replaced as a whole so threads
+     * always see a matching pair.
+     */
+    private static final class SecondCache {
+
+        final long second;
+        final String prefix;
+
+        SecondCache(long second, String prefix) {
+            this.second = second;
+            this.prefix = prefix;
+        }
+    }
+
+    private volatile SecondCache secondCache = new SecondCache(-1, "");
+
+    private final ConcurrentHashMap<String, String> simpleNames
+            = new ConcurrentHashMap<>();
+
+    @Override
+    public String format(LogRecord record) {
+        StringBuilder sb = STATE.get().builder();
+        formatTo(record, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Appends the formatted record to the end of the given builder.
+     *
+     * @param record Record to format
+     * @param sb Builder that receives the text
+     */
+    void formatTo(LogRecord record, StringBuilder sb) {
+        appendTime(record.getMillis(), sb);
+        sb.append(' ')
+                .append(record.getLevel().getName())
+                .append(' ')
+                .append('(')
+                .append(source(record))
+                .append(')')
+                .append(':')
+                .append(' ')
+                .append(message(record))
+                .append(LINE_SEPARATOR);
+
+        if (record.getThrown() != null) {
+            Throwable t = record.getThrown();
+            sb.append(t.toString()).append(LINE_SEPARATOR);
+            for (StackTraceElement e : t.getStackTrace()) {
+                sb.append("\t at ")
+                        .append(e.toString())
+                        .append(LINE_SEPARATOR);
+            }
+        }
+    }
+
+    /**
+     * Formats the record and appends it to the buffer in the default charset.
+     *
+     * @param record Record to format
+     * @param target Buffer in write mode
+     * @return The buffer containing the record, a larger copy of the target
+     * if it was too small.
+     */
+    ByteBuffer encode(LogRecord record, ByteBuffer target) {
+        State state = STATE.get();
+        StringBuilder sb = state.builder();
+        formatTo(record, sb);
+        int length = sb.length();
+        if (state.chars.length < length) {
+            state.chars = new char[Math.max(length, state.chars.length * 2)];
+            state.charBuffer = CharBuffer.wrap(state.chars);
+        }
+        sb.getChars(0, length, state.chars, 0);
+        CharBuffer in = state.charBuffer;
+        in.clear().limit(length);
+        CharsetEncoder encoder = state.encoder;
+        encoder.reset();
+        while (encoder.encode(in, target, true).isOverflow()) {
+            target = grow(target, length);
+        }
+        while (encoder.flush(target).isOverflow()) {
+            target = grow(target, 16);
+        }
+        return target;
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int needed) {
+        ByteBuffer larger = ByteBuffer.allocate(
+                Math.max(buffer.capacity() * 2, buffer.capacity() + needed));
+        buffer.flip();
+        return larger.put(buffer);
+    }
+
+    private void appendTime(long millis, StringBuilder sb) {
+        long second = Math.floorDiv(millis, 1000L);
+        SecondCache cache = secondCache;
+        if (cache.second != second) {
+            cache = new SecondCache(second,
+                    SECOND_FMT.format(Instant.ofEpochSecond(second)));
+            secondCache = cache;
+        }
+        int ms = (int) Math.floorMod(millis, 1000L);
+        sb.append(cache.prefix)
+                .append((char) ('0' + ms / 100))
+                .append((char) ('0' + ms / 10 % 10))
+                .append((char) ('0' + ms % 10));
+    }
+
+    private String source(LogRecord record) {
+        String source = record.getSourceClassName();
+        if (source == null) {
+            return record.getLoggerName();
+        }
+        String simple = simpleNames.get(source);
+        if (simple == null) {
+            // Use only last part that comes after . if there is a .
+            int idx = source.lastIndexOf('.');
+            simple = idx >= 0 ? source.substring(idx + 1) : source;
+            if (simpleNames.size() >= MAX_CACHED_NAMES) {
+                simpleNames.clear();
+            }
+            simpleNames.put(source, simple);
+        }
+        return simple;
+    }
+
+    /**
+     * Returns the message, only using the message formatting of the base
+     * class if there are parameters or a resource bundle.
+     */
+    private String message(LogRecord record) {
+        Object[] parameters = record.getParameters();
+        if (record.getResourceBundle() == null
+                && (parameters == null || parameters.length == 0)) {
+            return record.getMessage();
+        }
+        return formatMessage(record);
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Parallel variants of bulk operations on large double arrays, using the
+ * common ForkJoinPool. Arrays shorter than the threshold are processed on the
+ * calling thread, as the overhead of splitting the work is higher than the
+ * gain for them.
+ * <p>
+ * The array is always divided into blocks of a fixed size. Reductions first
+ * reduce each block and then combine the block results from left to right,
+ * also if the array is short and everything runs on the calling thread. The
+ * result therefore only depends on the values, not on the number of cores or
+ * on which thread processed which block.
+ * <p>
+ * For min, max and other exact operators this gives the same result as a
+ * simple loop. Floating point additions are not associative though, the
+ * blockwise sums differ in the last digits from a simple loop over the whole
+ * array, which adds in a different order. Both are approximations of the
+ * exact sum, the methods are named blockwise to make that visible.
+ * <p>
+ * Like ArraysExt, this class is intended to be used with a static import.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public abstract class ParallelArrays {
+
+    /**
+     * Number of elements processed by one task and the block size of all
+     * reductions. Must not depend on the machine to get reproducible results.
+     */
+    static final int BLOCK_SIZE = 8192;
+
+    private static volatile int threshold = 1 << 17;
+
+    /**
+     * Sets the array length from which on the work is split between threads.
+     * Use the ParallelArraysBenchmark to find the crossover point of a
+     * machine.
+     *
+     * @param length Minimum length for parallel processing, 0 to always split
+     * and Integer.MAX_VALUE to never split.
+     */
+    public static void setThreshold(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Negative threshold.");
+        }
+        threshold = length;
+    }
+
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Work on a range of indices, from inclusive, to exclusive.
+     */
+    @FunctionalInterface
+    private interface RangeTask {
+
+        void run(int from, int to);
+    }
+
+    /**
+     * Splits a range of blocks in halves until a single block remains.
+     */
+    private static final class BlockAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RangeTask task;
+        private final int length;
+        private final int firstBlock;
+        private final int endBlock;
+
+        BlockAction(RangeTask task, int length, int firstBlock,
+                int endBlock) {
+            this.task = task;
+            this.length = length;
+            this.firstBlock = firstBlock;
+            this.endBlock = endBlock;
+        }
+
+        @Override
+        protected void compute() {
+            if (endBlock - firstBlock == 1) {
+                int from = firstBlock * BLOCK_SIZE;
+                task.run(from, Math.min(length, from + BLOCK_SIZE));
+                return;
+            }
+            int mid = (firstBlock + endBlock) >>> 1;
+            invokeAll(new BlockAction(task, length, firstBlock, mid),
+                    new BlockAction(task, length, mid, endBlock));
+        }
+    }
+
+    private static int blockCount(int length) {
+        return (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /**
+     * Runs the task for each block, in parallel if the length reaches the
+     * threshold and the common pool has more than one thread.
+     */
+    private static void forEachBlock(int length, RangeTask task) {
+        int blocks = blockCount(length);
+        if (blocks == 0) {
+            return;
+        }
+        if (length < threshold || blocks == 1
+                || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            for (int block = 0; block < blocks; block++) {
+                int from = block * BLOCK_SIZE;
+                task.run(from, Math.min(length, from + BLOCK_SIZE));
+            }
+        } else {
+            ForkJoinPool.commonPool().invoke(
+                    new BlockAction(task, length, 0, blocks));
+        }
+    }
+
+    /**
+     * Sets all values of the array.
+     *
+     * @param target Array which will be modified
+     * @param value Value for all elements
+     */
+    public static void fill(double[] target, double value) {
+        forEachBlock(target.length, (from, to) -> {
+            for (int idx = from; idx < to; idx++) {
+                target[idx] = value;
+            }
+        });
+    }
+
+    /**
+     * Copies the contents of one array to another of the same length.
+     *
+     * @param source Array to copy from
+     * @param target Array to copy to
+     */
+    public static void copy(double[] source, double[] target) {
+        if (source.length != target.length) {
+            throw new IllegalArgumentException("Length mismatch.");
+        }
+        forEachBlock(source.length, (from, to)
+                -> System.arraycopy(source, from, target, from, to - from));
+    }
+
+    /**
+     * Applies a function to each value. The function will be called from
+     * several threads at the same time and must not have side effects.
+     *
+     * @param target Array which receives the results, may be the source.
+     * @param source Array with the arguments
+     * @param function Function to apply
+     */
+    public static void transform(double[] target, double[] source,
+            DoubleUnaryOperator function) {
+        if (source.length != target.length) {
+            throw new IllegalArgumentException("Length mismatch.");
+        }
+        forEachBlock(source.length, (from, to) -> {
+            for (int idx = from; idx < to; idx++) {
+                target[idx] = function.applyAsDouble(source[idx]);
+            }
+        });
+    }
+
+    /**
+     * Reduces one block, from inclusive, to exclusive.
+     */
+    @FunctionalInterface
+    private interface BlockReducer {
+
+        double reduce(int from, int to);
+    }
+
+    /**
+     * Reduces each block and returns the block results. The loops are passed
+     * per operation so each of them gets compiled for its operation instead of
+     * calling an operator for each element.
+     */
+    private static double[] reduceBlocks(int length, BlockReducer reducer) {
+        double[] partials = new double[blockCount(length)];
+        forEachBlock(length, (from, to)
+                -> partials[from / BLOCK_SIZE] = reducer.reduce(from, to));
+        return partials;
+    }
+
+    /**
+     * Combines all values with an associative operator. Each block is reduced
+     * from left to right starting with the identity, then the block results
+     * are combined from left to right, so the result is reproducible.
+     *
+     * @param array Values to reduce
+     * @param identity Neutral value of the operator, like 0 for a sum
+     * @param operator Associative function without side effects
+     * @return Result, identity for an empty array.
+     */
+    public static double reduce(double[] array, double identity,
+            DoubleBinaryOperator operator) {
+        double[] partials = reduceBlocks(array.length, (from, to) -> {
+            double result = identity;
+            for (int idx = from; idx < to; idx++) {
+                result = operator.applyAsDouble(result, array[idx]);
+            }
+            return result;
+        });
+        double result = identity;
+        for (double partial : partials) {
+            result = operator.applyAsDouble(result, partial);
+        }
+        return result;
+    }
+
+    /**
+     * Sums the values of one block.
+     */
+    private static double blockSum(double[] array, int from, int to) {
+        double sum = 0.0;
+        for (int idx = from; idx < to; idx++) {
+            sum += array[idx];
+        }
+        return sum;
+    }
+
+    /**
+     * Calculates the sum of all values blockwise. Each block is summed from
+     * left to right, then the block sums are added from left to right.
+     * <p>
+     * With n values and the unit roundoff u = 2^-53, the difference to the
+     * exact sum is at most about (BLOCK_SIZE + n / BLOCK_SIZE) * u times the
+     * sum of the absolute values. A simple loop has a bound of n * u times
+     * the same, so this is at least as accurate, but not bitwise equal to
+     * it.
+     *
+     * @param array Values to add
+     * @return Sum, 0.0 for an empty array.
+     */
+    public static double blockwiseSum(double[] array) {
+        double sum = 0.0;
+        for (double partial : reduceBlocks(array.length,
+                (from, to) -> blockSum(array, from, to))) {
+            sum += partial;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the smallest value.
+     *
+     * @param array Values to inspect
+     * @return Smallest value, NaN if any value is NaN, positive infinity for
+     * an empty array.
+     */
+    public static double min(double[] array) {
+        double min = Double.POSITIVE_INFINITY;
+        for (double partial : reduceBlocks(array.length, (from, to) -> {
+            double result = Double.POSITIVE_INFINITY;
+            for (int idx = from; idx < to; idx++) {
+                result = Math.min(result, array[idx]);
+            }
+            return result;
+        })) {
+            min = Math.min(min, partial);
+        }
+        return min;
+    }
+
+    /**
+     * Returns the largest value.
+     *
+     * @param array Values to inspect
+     * @return Largest value, NaN if any value is NaN, negative infinity for an
+     * empty array.
+     */
+    public static double max(double[] array) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double partial : reduceBlocks(array.length, (from, to) -> {
+            double result = Double.NEGATIVE_INFINITY;
+            for (int idx = from; idx < to; idx++) {
+                result = Math.max(result, array[idx]);
+            }
+            return result;
+        })) {
+            max = Math.max(max, partial);
+        }
+        return max;
+    }
+
+    /**
+     * Calculates the arithmetic mean of all values from their blockwise sum,
+     * see blockwiseSum for the error bound.
+     *
+     * @param array Values
+     * @return Mean, NaN for an empty array.
+     */
+    public static double mean(double[] array) {
+        return blockwiseSum(array) / array.length;
+    }
+
+    /**
+     * Calculates the cumulative sum, like cumsum in MATLAB: each element of
+     * the target is the sum of the source values up to and including its
+     * index. The sum of each block is calculated first, then each block adds
+     * its values to the sum of all blocks before it.
+     * <p>
+     * As with blockwiseSum, the results differ in the last digits from a
+     * simple loop. The error of element k is at most about (BLOCK_SIZE + k /
+     * BLOCK_SIZE) * u times the sum of the absolute values up to k, with the
+     * unit roundoff u = 2^-53. Within the first block, the result is equal
+     * to a simple loop.
+     *
+     * @param target Array which receives the result, may be the source.
+     * @param source Values to add
+     */
+    public static void blockwisePrefixSum(double[] target,
+            double[] source) {
+        if (source.length != target.length) {
+            throw new IllegalArgumentException("Length mismatch.");
+        }
+        double[] offsets = reduceBlocks(source.length,
+                (from, to) -> blockSum(source, from, to));
+        double offset = 0.0;
+        for (int block = 0; block < offsets.length; block++) {
+            double blockSum = offsets[block];
+            offsets[block] = offset;
+            offset += blockSum;
+        }
+        forEachBlock(source.length, (from, to) -> {
+            double sum = offsets[from / BLOCK_SIZE];
+            for (int idx = from; idx < to; idx++) {
+                sum += source[idx];
+                target[idx] = sum;
+            }
+        });
+    }
+}
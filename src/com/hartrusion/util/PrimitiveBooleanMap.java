@@ -23,45 +23,26 @@
  */
 package com.hartrusion.util;
 
-import java.util.ArrayList;
-import java.util.List;
-import static com.hartrusion.util.ArraysExt.newArrayLength;
-
 /**
  * Assigns boolean values to a key (String), does not meet the requirements of a
  * java map as it uses primitive types instead of Objects.
+ * <p>
+ * This is a thin wrapper around ObjectBooleanMap, which should be preferred
+ * for new code.
  *
  * @author Viktor Alexander Hartung
  */
 public class PrimitiveBooleanMap {
 
-    List<String> keys = new ArrayList<>();
-    boolean[] values;
+    private final ObjectBooleanMap<String> map = new ObjectBooleanMap<>();
 
     public void setValue(String key, boolean value) {
         if (key != null) {
-            if (keys.contains(key)) {
-                values[keys.indexOf(key)] = value;
-            } else {
-                if (values == null) {
-                    // first call:
-                    values = new boolean[1];
-                    keys.add(key);
-                    values[0] = value;
-                } else {
-                    // extend arrays by 1 and append value:
-                    values = newArrayLength(values, values.length + 1);
-                    values[values.length] = value;
-                }
-            }
+            map.put(key, value);
         }
     }
 
     public boolean getValue(String key) {
-        int idx = keys.indexOf(key);
-        if (idx == -1) {
-            return false;
-        }
-        return values[idx];
+        return map.get(key);
     }
 }
@@ -0,0 +1,411 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Filter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Limits how often the same message is logged. Each message of a logger has
+ * a token bucket which allows a burst of records and then a steady rate.
+ * Records beyond that are dropped and counted. The next record of the same
+ * message that passes is preceded by a summary record with the number of
+ * suppressed ones, so a log storm turns into one summary per refill period.
+ * If the message stops, its summary is logged by a background thread once
+ * the message got no record for one refill period, by flush or when the JVM
+ * shuts down.
+ * <p>
+ * Messages are told apart by logger name and the unformatted message, which
+ * usually identifies the call site, so a warning logged in a loop with
+ * changing parameters is limited as one. Limits are set for single messages
+ * with setLimit, a default limit for all other messages is optional. Without
+ * one, only the messages with a limit are checked. Checking a record does not
+ * create objects unless a bucket is created or a summary is logged.
+ * <p>
+ * The filter can be set on a logger or on a handler. Summaries are logged to
+ * the logger of the suppressed records with their level and always pass.
+ *
+ * @author Viktor Alexander Hartung
+ */
+public class RateLimitFilter implements Filter {
+
+    private static final String SUMMARY
+            = "Suppressed {0} similar messages: {1}";
+
+    /**
+     * Number of messages per logger from which on the buckets are dropped
+     * and started over, keeps messages with changing text from using up
+     * memory.
+     */
+    private static final int MAX_MESSAGES = 1024;
+
+    /**
+     * Time between two checks for summaries of messages that stopped, in
+     * milliseconds.
+     */
+    private static final long FLUSH_INTERVAL = 100;
+
+    /**
+     * Thread that logs the summaries of messages that stopped, shared by all
+     * filters and created when first needed.
+     */
+    private static ScheduledExecutorService flusher;
+
+    private static final class Limit {
+
+        final double burst;
+        final double tokensPerNano;
+
+        Limit(int burst, double ratePerSecond) {
+            if (burst < 1 || !(ratePerSecond > 0)) {
+                throw new IllegalArgumentException("Invalid rate limit.");
+            }
+            this.burst = burst;
+            this.tokensPerNano = ratePerSecond / 1e9;
+        }
+    }
+
+    private static final class Bucket {
+
+        final String loggerName;
+        final String message;
+        final Limit limit;
+        double tokens;
+        long time;
+        long suppressed;
+
+        /**
+         * Level and source of the first suppressed record, used for a
+         * summary that is not logged before a passing record.
+         */
+        Level level;
+        String sourceClassName;
+        String sourceMethodName;
+
+        Bucket(String loggerName, String message, Limit limit, long time) {
+            this.loggerName = loggerName;
+            this.message = message;
+            this.limit = limit;
+            this.tokens = limit.burst;
+            this.time = time;
+        }
+    }
+
+    private final Filter next;
+
+    /**
+     * Limit of messages without their own, null to let them pass.
+     */
+    private final Limit defaultLimit;
+
+    private final ConcurrentHashMap<String, Limit> limits
+            = new ConcurrentHashMap<>();
+
+    /**
+     * Buckets by logger name and message.
+     */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Bucket>>
+            buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Buckets with suppressed records that were not summarized yet.
+     */
+    private final Set<Bucket> pending = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final LongAdder suppressedCount = new LongAdder();
+
+    /**
+     * Creates a filter that only limits the messages set with setLimit.
+     */
+    public RateLimitFilter() {
+        this(null);
+    }
+
+    /**
+     * Creates a filter that only limits the messages set with setLimit and
+     * only checks records passed by another filter.
+     *
+     * @param next Filter that is checked first, may be null.
+     */
+    public RateLimitFilter(Filter next) {
+        this.defaultLimit = null;
+        this.next = next;
+        addShutdownHook();
+    }
+
+    /**
+     * Creates a filter with the same limit for all messages.
+     *
+     * @param burst Number of records that pass at once
+     * @param ratePerSecond Number of records per second that pass after the
+     * burst is used up.
+     */
+    public RateLimitFilter(int burst, double ratePerSecond) {
+        this(burst, ratePerSecond, null);
+    }
+
+    /**
+     * Creates a filter with the same limit for all messages that only
+     * checks records passed by another filter.
+     *
+     * @param burst Number of records that pass at once
+     * @param ratePerSecond Number of records per second that pass after the
+     * burst is used up.
+     * @param next Filter that is checked first, may be null.
+     */
+    public RateLimitFilter(int burst, double ratePerSecond, Filter next) {
+        this.defaultLimit = new Limit(burst, ratePerSecond);
+        this.next = next;
+        addShutdownHook();
+    }
+
+    private void addShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(
+                new Thread(this::flush, "RateLimitFilter-Shutdown"));
+    }
+
+    /**
+     * Sets a filter on a logger that only limits the messages set with
+     * setLimit, a filter that is already set is checked before.
+     *
+     * @param logger Logger to limit
+     * @return The filter that was set on the logger
+     */
+    public static RateLimitFilter install(Logger logger) {
+        RateLimitFilter filter = new RateLimitFilter(logger.getFilter());
+        logger.setFilter(filter);
+        return filter;
+    }
+
+    /**
+     * Sets a rate limit for all messages on a logger, a filter that is
+     * already set is checked before the limit.
+     *
+     * @param logger Logger to limit
+     * @param burst Number of records that pass at once
+     * @param ratePerSecond Number of records per second that pass after the
+     * burst is used up.
+     * @return The filter that was set on the logger
+     */
+    public static RateLimitFilter install(Logger logger, int burst,
+            double ratePerSecond) {
+        RateLimitFilter filter = new RateLimitFilter(burst, ratePerSecond,
+                logger.getFilter());
+        logger.setFilter(filter);
+        return filter;
+    }
+
+    /**
+     * Sets a different limit for one message. Applies to records of that
+     * message that are checked after this call.
+     *
+     * @param message The unformatted message as passed to the logger
+     * @param burst Number of records that pass at once
+     * @param ratePerSecond Number of records per second that pass after the
+     * burst is used up.
+     */
+    public void setLimit(String message, int burst, double ratePerSecond) {
+        limits.put(message, new Limit(burst, ratePerSecond));
+        for (ConcurrentHashMap<String, Bucket> messages : buckets.values()) {
+            messages.remove(message);
+        }
+    }
+
+    /**
+     * Logs the summaries of all suppressed records that were not summarized
+     * yet. Called by a shutdown hook, call it before closing the handlers to
+     * get the summaries in the log.
+     */
+    public void flush() {
+        flush(Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of records this filter has dropped so far.
+     *
+     * @return Number of suppressed records
+     */
+    public long getSuppressedCount() {
+        return suppressedCount.sum();
+    }
+
+    @Override
+    public boolean isLoggable(LogRecord record) {
+        if (next != null && !next.isLoggable(record)) {
+            return false;
+        }
+        String message = record.getMessage();
+        if (message == SUMMARY) {
+            return true;
+        }
+        if (message == null) {
+            message = "";
+        }
+        Limit limit = limits.isEmpty() ? defaultLimit
+                : limits.getOrDefault(message, defaultLimit);
+        if (limit == null) {
+            return true;
+        }
+        String loggerName = record.getLoggerName();
+        if (loggerName == null) {
+            loggerName = "";
+        }
+        Bucket bucket = bucket(loggerName, message, limit);
+        long suppressed;
+        synchronized (bucket) {
+            long now = System.nanoTime();
+            Limit bucketLimit = bucket.limit;
+            bucket.tokens = Math.min(bucketLimit.burst, bucket.tokens
+                    + (now - bucket.time) * bucketLimit.tokensPerNano);
+            bucket.time = now;
+            if (bucket.tokens < 1) {
+                if (bucket.suppressed++ == 0) {
+                    bucket.level = record.getLevel();
+                    bucket.sourceClassName = record.getSourceClassName();
+                    bucket.sourceMethodName = record.getSourceMethodName();
+                    pending.add(bucket);
+                    scheduleFlush();
+                }
+                suppressedCount.increment();
+                return false;
+            }
+            bucket.tokens -= 1;
+            suppressed = bucket.suppressed;
+            if (suppressed > 0) {
+                bucket.suppressed = 0;
+                pending.remove(bucket);
+            }
+        }
+        if (suppressed > 0) {
+            logSummary(loggerName, record.getLevel(),
+                    record.getSourceClassName(), record.getSourceMethodName(),
+                    message, suppressed);
+        }
+        return true;
+    }
+
+    private static synchronized ScheduledExecutorService flusher() {
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "RateLimitFilter-Flusher");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return flusher;
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            flusher().schedule(this::flushStopped, FLUSH_INTERVAL,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Logs the summaries of messages that got no record for one refill
+     * period, checks again later while there are pending summaries.
+     */
+    private void flushStopped() {
+        flushScheduled.set(false);
+        flush(System.nanoTime());
+        if (!pending.isEmpty()) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Logs the summaries of the pending buckets that got no record since a
+     * token was refilled, all if now is Long.MAX_VALUE.
+     */
+    private void flush(long now) {
+        for (Bucket bucket : pending) {
+            long suppressed;
+            synchronized (bucket) {
+                if (now != Long.MAX_VALUE && bucket.suppressed > 0 && (now
+                        - bucket.time) * bucket.limit.tokensPerNano < 1) {
+                    continue;
+                }
+                suppressed = bucket.suppressed;
+                bucket.suppressed = 0;
+                pending.remove(bucket);
+            }
+            if (suppressed > 0) {
+                logSummary(bucket.loggerName, bucket.level,
+                        bucket.sourceClassName, bucket.sourceMethodName,
+                        bucket.message, suppressed);
+            }
+        }
+    }
+
+    private Bucket bucket(String loggerName, String message, Limit limit) {
+        ConcurrentHashMap<String, Bucket> messages = buckets.get(loggerName);
+        if (messages == null) {
+            messages = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, Bucket> existing
+                    = buckets.putIfAbsent(loggerName, messages);
+            if (existing != null) {
+                messages = existing;
+            }
+        }
+        Bucket bucket = messages.get(message);
+        if (bucket == null) {
+            if (messages.size() >= MAX_MESSAGES) {
+                messages.clear();
+            }
+            bucket = new Bucket(loggerName, message, limit,
+                    System.nanoTime());
+            Bucket existing = messages.putIfAbsent(message, bucket);
+            if (existing != null) {
+                bucket = existing;
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * Logs the number of suppressed records of a message.
+     */
+    private static void logSummary(String loggerName, Level level,
+            String sourceClassName, String sourceMethodName, String message,
+            long suppressed) {
+        LogRecord summary = new LogRecord(level, SUMMARY);
+        summary.setParameters(new Object[]{suppressed, message});
+        summary.setLoggerName(loggerName);
+        summary.setSourceClassName(sourceClassName);
+        summary.setSourceMethodName(sourceMethodName);
+        Logger.getLogger(loggerName).log(summary);
+    }
+}
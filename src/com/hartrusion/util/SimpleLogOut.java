@@ -27,12 +27,15 @@ package com.hartrusion.util;
  * Modifies the default java util logging to output all logs on command line
  * using System.out instead of System.err. The Output is shortend and compacted
  * to one line and outputs miliseconds.
+ * <p>
+ * The async variants hand the records to an AsyncLogHandler, which writes
+ * them on a background thread in batches. Threads that log then do not wait
+ * for the console, which matters if many records are logged at once, for
+ * example during connection storms.
  *
  * @author Viktor Alexander Hartung
  */
-import java.time.Instant;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.io.PrintStream;
 import java.util.logging.*;
 
 public class SimpleLogOut {
@@ -40,9 +43,7 @@ public class SimpleLogOut {
     public static void configureLoggingToStdOut() {
         Logger root = Logger.getLogger(""); // get root logger
         // Remove all handlers
-        for (Handler h : root.getHandlers()) {
-            root.removeHandler(h);
-        }
+        removeHandlers(root);
         
         root.setLevel(Level.CONFIG);
         
@@ -81,9 +82,7 @@ public class SimpleLogOut {
     public static void configureLoggingWarningsOnly() {
         Logger root = Logger.getLogger(""); // get root logger
         // Remove all handlers
-        for (Handler h : root.getHandlers()) {
-            root.removeHandler(h);
-        }
+        removeHandlers(root);
         
         root.setLevel(Level.CONFIG);
         
@@ -101,53 +100,77 @@ public class SimpleLogOut {
         outHandler.setLevel(Level.WARNING);
         root.addHandler(outHandler);
     }
-}
 
-class OneLineFormatter extends Formatter {
-    private static final DateTimeFormatter TIME_FMT
-            = DateTimeFormatter.ofPattern("HH:mm:ss:SSS")
-                    .withZone(ZoneId.systemDefault());
+    /**
+     * Same output as configureLoggingToStdOut, but the records are written
+     * by a background thread.
+     *
+     * @param capacity Maximum number of records waiting to be written
+     * @param policy What to do with records if that number is reached
+     * @return The installed handler, for example to get the dropped count
+     */
+    public static AsyncLogHandler configureAsyncLoggingToStdOut(int capacity,
+            AsyncLogHandler.OverflowPolicy policy) {
+        Handler outHandler = consoleHandler(System.out);
+        outHandler.setLevel(Level.CONFIG);
+        outHandler.setFilter(new MaxLevelFilter(Level.WARNING));
+        Handler errHandler = consoleHandler(System.err);
+        errHandler.setLevel(Level.WARNING);
+        AsyncLogHandler handler = new AsyncLogHandler(capacity, policy,
+                outHandler, errHandler);
+        handler.setLevel(Level.CONFIG);
+        installOnly(handler);
+        return handler;
+    }
 
-    @Override
-    public String format(LogRecord record) {
-        String time = TIME_FMT.format(Instant.ofEpochMilli(record.getMillis()));
-        String source;
-        if (record.getSourceClassName() != null) {
-            source = record.getSourceClassName();
-            // Use only last part that comes after . if there is a .
-            int idx = source.lastIndexOf('.');
-            if (idx >= 0) {
-                source = source.substring(idx + 1);
-            }
-        } else {
-            source = record.getLoggerName();
-        }
+    /**
+     * Same output as configureLoggingWarningsOnly, but the records are
+     * written by a background thread.
+     *
+     * @param capacity Maximum number of records waiting to be written
+     * @param policy What to do with records if that number is reached
+     * @return The installed handler, for example to get the dropped count
+     */
+    public static AsyncLogHandler configureAsyncLoggingWarningsOnly(
+            int capacity, AsyncLogHandler.OverflowPolicy policy) {
+        Handler errHandler = consoleHandler(System.err);
+        errHandler.setLevel(Level.WARNING);
+        AsyncLogHandler handler = new AsyncLogHandler(capacity, policy,
+                errHandler);
+        handler.setLevel(Level.WARNING);
+        installOnly(handler);
+        return handler;
+    }
 
-        String message = formatMessage(record);
+    /**
+     * Creates a handler for the console which is flushed by the async
+     * handler after each batch. Closing it does not close the stream.
+     */
+    private static Handler consoleHandler(PrintStream stream) {
+        return new BatchedStreamHandler(stream);
+    }
 
-        StringBuilder sb = new StringBuilder(128);
-        sb.append(time)
-                .append(' ')
-                .append(record.getLevel().getName())
-                .append(' ')
-                .append('(')
-                .append(source)
-                .append(')')
-                .append(':')
-                .append(' ')
-                .append(message)
-                .append(System.lineSeparator());
+    /**
+     * Replaces all handlers of the root logger with the given one.
+     */
+    private static void installOnly(Handler handler) {
+        Logger root = Logger.getLogger("");
+        removeHandlers(root);
+        root.setLevel(Level.CONFIG);
+        root.addHandler(handler);
+    }
 
-        if (record.getThrown() != null) {
-            Throwable t = record.getThrown();
-            sb.append(t.toString()).append(System.lineSeparator());
-            for (StackTraceElement e : t.getStackTrace()) {
-                sb.append("\t at ")
-                        .append(e.toString())
-                        .append(System.lineSeparator());
+    /**
+     * Removes all handlers of a logger. Async handlers installed before are
+     * closed, which stops their writer thread after the pending records.
+     */
+    private static void removeHandlers(Logger logger) {
+        for (Handler h : logger.getHandlers()) {
+            logger.removeHandler(h);
+            if (h instanceof AsyncLogHandler) {
+                h.close();
             }
         }
-        return sb.toString();
     }
 }
 
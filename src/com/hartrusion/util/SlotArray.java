@@ -0,0 +1,318 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Viktor Alexander Hartung.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.hartrusion.util;
+
+import java.util.Arrays;
+
+/**
+ * An array of object references with constant time add, remove, contains and
+ * indexOf, as a replacement for ArraysExt.addObject, containsObject and
+ * indexOfObject on registries with many entries.
+ * <p>
+ * The objects are kept in a plain Object array where unused slots are null,
+ * the same layout those functions work with. The array can be accessed with
+ * {@link #array()} for existing code that loops over it. Free slots are marked
+ * in a bitmap, adding takes the lowest free slot like addObject, but checks
+ * 64 slots at once instead of searching for the next null. An index table
+ * with open addressing maps each object to its slot by identity, using
+ * System.identityHashCode, like the == comparison of the ArraysExt functions.
+ * <p>
+ * Each object can be contained only once. The array grows by doubling its
+ * length if all slots are used, which replaces the array returned by
+ * array(). This class is not thread safe.
+ *
+ * @param <T> Type of the objects
+ * @author Viktor Alexander Hartung
+ */
+public class SlotArray<T> {
+
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    private Object[] slots;
+
+    /**
+     * One bit for each slot which is set if the slot is free.
+     */
+    private long[] free;
+    private int freeCount;
+
+    /**
+     * Index of the first word in free that can have a set bit.
+     */
+    private int firstFreeWord;
+
+    /**
+     * Slot index + 1 of each object at its hash position, 0 is empty.
+     */
+    private int[] table;
+    private int mask;
+    private int size;
+
+    public SlotArray() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty slot array.
+     *
+     * @param capacity Number of slots
+     */
+    public SlotArray(int capacity) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Invalid capacity.");
+        }
+        slots = new Object[capacity];
+        free = new long[(capacity + 63) >>> 6];
+        setFree(0, capacity);
+        createTable();
+    }
+
+    /**
+     * Marks the slots from first to end as free.
+     */
+    private void setFree(int first, int end) {
+        for (int idx = first; idx < end; idx++) {
+            free[idx >>> 6] |= 1L << idx;
+        }
+        freeCount += end - first;
+        firstFreeWord = Math.min(firstFreeWord, first >>> 6);
+    }
+
+    /**
+     * Takes the lowest free slot, there must be one.
+     */
+    private int takeFree() {
+        while (free[firstFreeWord] == 0) {
+            firstFreeWord++;
+        }
+        long word = free[firstFreeWord];
+        free[firstFreeWord] = word & (word - 1);
+        freeCount--;
+        return (firstFreeWord << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    private void createTable() {
+        int tableSize = Integer.highestOneBit(slots.length * 3 / 2) << 1;
+        table = new int[tableSize];
+        mask = tableSize - 1;
+        for (int idx = 0; idx < slots.length; idx++) {
+            if (slots[idx] != null) {
+                int pos = hash(slots[idx]);
+                while (table[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                table[pos] = idx + 1;
+            }
+        }
+    }
+
+    private int hash(Object obj) {
+        int h = System.identityHashCode(obj) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Returns the table position of the object or -1.
+     */
+    private int find(Object obj) {
+        if (obj == null) {
+            return -1;
+        }
+        int pos = hash(obj);
+        int entry;
+        while ((entry = table[pos]) != 0) {
+            if (slots[entry - 1] == obj) {
+                return pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds an object to the next free slot.
+     *
+     * @param obj Object to add, must not be null
+     * @return Index of the slot, or the index it already had if it was
+     * contained before.
+     */
+    public int add(T obj) {
+        if (obj == null) {
+            throw new NullPointerException("Object must not be null.");
+        }
+        int pos = find(obj);
+        if (pos >= 0) {
+            return table[pos] - 1;
+        }
+        if (freeCount == 0) {
+            grow();
+        }
+        int idx = takeFree();
+        slots[idx] = obj;
+        pos = hash(obj);
+        while (table[pos] != 0) {
+            pos = (pos + 1) & mask;
+        }
+        table[pos] = idx + 1;
+        size++;
+        return idx;
+    }
+
+    private void grow() {
+        if (slots.length >= MAX_CAPACITY) {
+            throw new IndexOutOfBoundsException("Array is fully used.");
+        }
+        int oldLength = slots.length;
+        slots = Arrays.copyOf(slots, oldLength * 2);
+        free = Arrays.copyOf(free, (slots.length + 63) >>> 6);
+        setFree(oldLength, slots.length);
+        createTable();
+    }
+
+    /**
+     * Removes an object and frees its slot.
+     *
+     * @param obj Object to remove
+     * @return true if the object was contained
+     */
+    public boolean remove(Object obj) {
+        int pos = find(obj);
+        if (pos < 0) {
+            return false;
+        }
+        int idx = table[pos] - 1;
+        removeFromTable(pos);
+        slots[idx] = null;
+        setFree(idx, idx + 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes the object in a slot.
+     *
+     * @param index Index of the slot
+     * @return The removed object or null if the slot was free.
+     */
+    @SuppressWarnings("unchecked")
+    public T removeAt(int index) {
+        T obj = (T) slots[index];
+        if (obj != null) {
+            remove(obj);
+        }
+        return obj;
+    }
+
+    /**
+     * Clears a table position and moves following entries back into the gap
+     * unless that would put them before their home position.
+     */
+    private void removeFromTable(int gap) {
+        int pos = gap;
+        while (true) {
+            pos = (pos + 1) & mask;
+            int entry = table[pos];
+            if (entry == 0) {
+                break;
+            }
+            int home = hash(slots[entry - 1]);
+            if (((pos - home) & mask) >= ((pos - gap) & mask)) {
+                table[gap] = entry;
+                gap = pos;
+            }
+        }
+        table[gap] = 0;
+    }
+
+    /**
+     * Checks if the object is contained, by identity.
+     *
+     * @param obj Object
+     * @return true if contained
+     */
+    public boolean contains(Object obj) {
+        return find(obj) >= 0;
+    }
+
+    /**
+     * Returns the slot index of the object, by identity.
+     *
+     * @param obj Object
+     * @return Index or -1 if not contained
+     */
+    public int indexOf(Object obj) {
+        int pos = find(obj);
+        return pos < 0 ? -1 : table[pos] - 1;
+    }
+
+    /**
+     * Returns the object in a slot.
+     *
+     * @param index Index of the slot
+     * @return Object or null if the slot is free
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) slots[index];
+    }
+
+    /**
+     * Returns the array of slots with null in all free slots. It must not be
+     * modified and is replaced by a new one if the slot array grows.
+     *
+     * @return Backing array
+     */
+    public Object[] array() {
+        return slots;
+    }
+
+    /**
+     * Returns the number of contained objects.
+     *
+     * @return Number of used slots
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Removes all objects, the capacity stays the same.
+     */
+    public void clear() {
+        Arrays.fill(slots, null);
+        Arrays.fill(table, 0);
+        Arrays.fill(free, 0);
+        freeCount = 0;
+        setFree(0, slots.length);
+        size = 0;
+    }
+}